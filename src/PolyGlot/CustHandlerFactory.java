@@ -233,6 +233,7 @@ public final class CustHandlerFactory {
             final PropertiesManager propertiesManager = core.getPropertiesManager();
             final FamilyManager famMgr = core.getFamManager();
             final PhraseManager phraseManager = core.getPhraseManager();
+            final StringPool stringPool = new StringPool(); // canonicalizes repeated values for the duration of the load
 
             @Override
             public void startElement(String uri, String localName, String qName, Attributes attributes) {
@@ -533,6 +534,8 @@ public final class CustHandlerFactory {
 
                     conjugationMgr.clearBuffer();
                 } else if (qName.equalsIgnoreCase(PGTUtil.LOCALWORD_XID)) {
+                    ConWord bufferWord = core.getWordCollection().getBufferWord();
+                    bufferWord.setLocalWord(stringPool.get(bufferWord.getLocalWord()));
                     blocalWord = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.CONWORD_XID)) {
                     bconWord = false;
@@ -549,7 +552,7 @@ public final class CustHandlerFactory {
                     core.getWordCollection().getBufferWord().setClassValue(classId, valId);
                     bclassVal = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.WORD_CLASS_TEXT_VAL_XID)){
-                    core.getWordCollection().getBufferWord().setClassTextValue(ruleIdBuffer, ruleValBuffer);
+                    core.getWordCollection().getBufferWord().setClassTextValue(ruleIdBuffer, stringPool.get(ruleValBuffer));
                     ruleIdBuffer = 0;
                     ruleValBuffer = "";
                     bwordClassTextVal = false;
@@ -564,6 +567,10 @@ public final class CustHandlerFactory {
                     }
                     
                     curWord.setDefinition(curWord.getDefinition().replaceAll("<br>\\s*[<br>\\s*]+<br>\\s*", ""));
+                    
+                    if (core.getWordCollection().isCompactDefinitions()) {
+                        curWord.compactDefinition();
+                    }
                     bdef = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.WORD_ETY_NOTES_XID)) {
                     bwordEtymNotes = false;
@@ -572,6 +579,8 @@ public final class CustHandlerFactory {
                 } else if (qName.equalsIgnoreCase(PGTUtil.FONT_LOCAL_XID)) {
                     bfontlocal = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.POS_NAME_XID) || qName.equalsIgnoreCase(PGTUtil.POS_NAME_XID_LEGACY)) {
+                    TypeNode node = core.getTypes().getBufferType();
+                    node.setValue(stringPool.get(node.getValue()));
                     bwordClassName = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.POS_NOTES_XID) || qName.equalsIgnoreCase(PGTUtil.POS_NOTES_XID_LEGACY)) {
                     TypeNode node = core.getTypes().getBufferType();
@@ -589,6 +598,8 @@ public final class CustHandlerFactory {
                 } else if (qName.equalsIgnoreCase(PGTUtil.POS_PATTERN_XID) || qName.equalsIgnoreCase(PGTUtil.POS_PATTERN_XID_LEGACY)) {
                     bwordClassPattern = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.POS_GLOSS_XID) || qName.equalsIgnoreCase(PGTUtil.POS_GLOSS_XID_LEGACY)) {
+                    TypeNode node = core.getTypes().getBufferType();
+                    node.setGloss(stringPool.get(node.getGloss()));
                     bwordClassGloss = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.WORD_PROC_XID)) {
                     bpronuncation = false;
@@ -615,6 +626,7 @@ public final class CustHandlerFactory {
                 } else if (qName.equalsIgnoreCase(PGTUtil.DECLENSION_ID_XID)) {
                     bDecId = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.DECLENSION_TEXT_XID)) {
+                    conjugationMgr.setBufferDecText(stringPool.get(conjugationMgr.getBufferDecText()));
                     bDecText = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.DECLENSION_NOTES_XID)) {
                     try {
@@ -653,6 +665,8 @@ public final class CustHandlerFactory {
                 } else if (qName.equalsIgnoreCase(PGTUtil.DIMENSION_ID_XID)) {
                     bdimId = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.DIMENSION_NAME_XID)) {
+                    ConjugationDimension dimBuffer = conjugationMgr.getBuffer().getBuffer();
+                    dimBuffer.setValue(stringPool.get(dimBuffer.getValue()));
                     bdimName = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.FAM_NAME_XID)) {
                     bfamName = false;
@@ -778,6 +792,8 @@ public final class CustHandlerFactory {
                 } else if (qName.equalsIgnoreCase(PGTUtil.CLASS_VALUE_ID_XID)) {
                     bclassValueId = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.CLASS_VALUE_NAME_XID)) {
+                    WordClassValue value = core.getWordClassCollection().getBuffer().buffer;
+                    value.setValue(stringPool.get(value.getValue()));
                     bclassValueName = false;
                 }  else if (qName.equalsIgnoreCase(PGTUtil.LANG_PROPCHAR_REP_NODE_XID)) {
                     core.getPropertiesManager().addCharacterReplacement(charRepCharBuffer, charRepValBuffer);
@@ -844,6 +860,8 @@ public final class CustHandlerFactory {
                 } else if (qName.equalsIgnoreCase(PGTUtil.PHRASE_NOTES_XID)) {
                     bphraseNotes = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.PHRASE_GLOSS_XID)) {
+                    PhraseNode buffer = phraseManager.getBuffer();
+                    buffer.setGloss(stringPool.get(buffer.getGloss()));
                     bphrasegloss = false;
                 } else if (qName.equalsIgnoreCase(PGTUtil.PHRASE_ORDER_XID)) {
                     bphraseOrder = false;
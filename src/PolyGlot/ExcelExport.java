@@ -19,9 +19,9 @@
  */
 package PolyGlot;
 
-import PolyGlot.ManagersCollections.ConjugationManager;
+import PolyGlot.ManagersCollections.Paradigms;
+import PolyGlot.ManagersCollections.PronunciationBatch;
 import PolyGlot.Nodes.ConWord;
-import PolyGlot.Nodes.ConjugationNode;
 import PolyGlot.Nodes.ConjugationPair;
 import PolyGlot.Nodes.PronunciationNode;
 import PolyGlot.Nodes.TypeNode;
@@ -31,37 +31,61 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 /**
- * This class exports an existing dictionary to an excel spreadsheet
+ * This class exports an existing dictionary to an excel spreadsheet. Exports
+ * are written either as legacy xls workbooks built in memory, or as xlsx
+ * workbooks streamed through a sliding window of rows, which are not limited
+ * to 65,536 rows per sheet. Streamed exports also generate wordforms a block
+ * of words at a time, keeping memory use bounded on large lexicons.
  *
  * @author Draque
  */
 public class ExcelExport {
     
     private final DictCore core;
-    private final ConjugationManager conMan;
-    HSSFWorkbook workbook = new HSSFWorkbook();
-    HSSFSheet sheet;
-    CellStyle localStyle = workbook.createCellStyle();
-    CellStyle conStyle = workbook.createCellStyle();
-    CellStyle boldHeader = workbook.createCellStyle();
-    Font conFont = workbook.createFont();
-    Font boldFont = workbook.createFont();
+    private final boolean streaming;
+    private PronunciationBatch wordProcs;
+    private PronunciationBatch wordRoms;
+    private Paradigms wordParadigms;
+    final Workbook workbook;
+    Sheet sheet;
+    final CellStyle localStyle;
+    final CellStyle conStyle;
+    final CellStyle boldHeader;
+    final Font conFont;
+    final Font boldFont;
     
-    private ExcelExport(DictCore _core) {
+    private ExcelExport(DictCore _core, boolean _streaming) {
         core = _core;
-        conMan = core.getConjugationManager();
+        streaming = _streaming;
+        
+        if (streaming) {
+            SXSSFWorkbook streamBook = new SXSSFWorkbook(PGTUtil.EXCEL_STREAM_ROW_WINDOW);
+            streamBook.setCompressTempFiles(true);
+            workbook = streamBook;
+        } else {
+            workbook = new HSSFWorkbook();
+        }
+        
+        localStyle = workbook.createCellStyle();
+        conStyle = workbook.createCellStyle();
+        boldHeader = workbook.createCellStyle();
+        conFont = workbook.createFont();
+        boldFont = workbook.createFont();
         
         conFont.setFontName(core.getPropertiesManager().getFontCon().getFontName());
         boldFont.setBold(true);
@@ -73,7 +97,8 @@ public class ExcelExport {
     }
     
     /**
-     * Exports a dictionary to an excel file (externally facing)
+     * Exports a dictionary to an excel file (externally facing). Files named
+     * with an xlsx extension are streamed, others are written as xls.
      *
      * @param fileName Filename to export to
      * @param core dictionary core
@@ -81,7 +106,21 @@ public class ExcelExport {
      * @throws IOException on write error
      */
     public static void exportExcelDict(String fileName, DictCore core, boolean separateDeclensions) throws IOException {
-        ExcelExport e = new ExcelExport(core);
+        exportExcelDict(fileName, core, separateDeclensions,
+                fileName.toLowerCase().endsWith(PGTUtil.EXCEL_STREAM_EXTENSION));
+    }
+    
+    /**
+     * Exports a dictionary to an excel file (externally facing)
+     *
+     * @param fileName Filename to export to
+     * @param core dictionary core
+     * @param separateDeclensions whether to separate parts of speech into separate pages for declension values
+     * @param streaming true to stream an xlsx workbook, false to write an xls workbook
+     * @throws IOException on write error
+     */
+    public static void exportExcelDict(String fileName, DictCore core, boolean separateDeclensions, boolean streaming) throws IOException {
+        ExcelExport e = new ExcelExport(core, streaming);
 
         e.export(fileName, separateDeclensions);
     }
@@ -110,11 +149,7 @@ public class ExcelExport {
         ret.add(conWord.getValue());
         ret.add(conWord.getLocalWord());
         ret.add(conWord.getWordTypeDisplay());
-        try {
-            ret.add(conWord.getPronunciation());
-        } catch (Exception e) {
-            ret.add("<ERROR>");
-        }
+        ret.add(wordProcs.getValueById(conWord.getId(), "<ERROR>"));
 
         String classes = "";
         for (Entry<Integer, Integer> curEntry : conWord.getClassValues()) {
@@ -132,18 +167,8 @@ public class ExcelExport {
         ret.add(classes);
         
         for (ConjugationPair conjugation : conjList) {
-            try {
-                ConjugationNode existingValue = conMan.getConjugationByCombinedId(conWord.getId(), conjugation.combinedId);
-                
-                if (existingValue != null && conWord.isOverrideAutoConjugate()) {
-                    declensionCell += existingValue.getValue() + ":";
-                }
-                else {
-                    declensionCell += conMan.declineWord(conWord, conjugation.combinedId) + ":";
-                }
-            } catch (Exception e) {
-                declensionCell += "DECLENSION ERROR";
-            }
+            String form = getExportForm(conWord, conjugation);
+            declensionCell += form == null ? "DECLENSION ERROR" : form + ":";
         }
 
         ret.add(declensionCell);
@@ -165,17 +190,8 @@ public class ExcelExport {
         ret.add(conWord.getValue());
         ret.add(conWord.getLocalWord());
         ret.add(conWord.getWordTypeDisplay());
-        try {
-            ret.add(conWord.getPronunciation());
-        } catch (Exception e) {
-            ret.add("<ERROR>");
-        }
-        
-        try {
-            ret.add(core.getRomManager().getPronunciation(conWord.getValue()));
-        } catch (Exception e) {
-            ret.add("<ERROR>");
-        }
+        ret.add(wordProcs.getValueById(conWord.getId(), "<ERROR>"));
+        ret.add(wordRoms.getValueById(conWord.getId(), "<ERROR>"));
 
         String classes = "";
         for (Entry<Integer, Integer> curEntry : conWord.getClassValues()) {
@@ -207,18 +223,8 @@ public class ExcelExport {
         ret.add(classes);
 
         for (ConjugationPair conjugation : conjList) {
-            try {
-                ConjugationNode existingValue = conMan.getConjugationByCombinedId(conWord.getId(), conjugation.combinedId);
-                
-                if (existingValue != null && conWord.isOverrideAutoConjugate()) {
-                    ret.add(existingValue.getValue());
-                }
-                else {
-                    ret.add(conMan.declineWord(conWord, conjugation.combinedId));
-                }
-            } catch (Exception e) {
-                ret.add("DECLENSION ERROR");
-            }
+            String form = getExportForm(conWord, conjugation);
+            ret.add(form == null ? "DECLENSION ERROR" : form);
         }
         
         ret.add(WebInterface.getTextFromHtml(conWord.getDefinition()));
@@ -226,6 +232,57 @@ public class ExcelExport {
         return ret;
     }
     
+    /**
+     * Gets a wordform as exported: the stored value if the word overrides
+     * autogeneration and has one, the generated value otherwise
+     * @param conWord word to get form of
+     * @param conjugation combined ID of form
+     * @return form of word, or null if it could not be generated
+     */
+    private String getExportForm(ConWord conWord, ConjugationPair conjugation) {
+        Paradigms.Table paradigm = wordParadigms.getWordTable(conWord.getId());
+        int row = paradigm.getRow(conWord.getId());
+        int col = paradigm.getColumn(conjugation.combinedId);
+        String ret = null;
+        
+        if (col != -1) {
+            String stored = paradigm.getStored(row, col);
+            ret = stored != null && conWord.isOverrideAutoConjugate() ? stored : paradigm.getGenerated(row, col);
+        }
+        
+        return ret;
+    }
+    
+    /**
+     * Splits words into the blocks their rows are written in. Streamed exports
+     * use fixed size blocks, others write all words as one block.
+     * @param words words to split
+     * @return blocks of words, in order given
+     */
+    private List<ConWord[]> getBlocks(ConWord[] words) {
+        List<ConWord[]> ret = new ArrayList<>();
+        int blockSize = streaming ? PGTUtil.EXCEL_STREAM_WORD_BLOCK : words.length;
+        
+        for (int start = 0; start < words.length; start += blockSize) {
+            ret.add(Arrays.copyOfRange(words, start, Math.min(words.length, start + blockSize)));
+        }
+        
+        return ret;
+    }
+    
+    /**
+     * Generates pronunciations, romanizations and wordforms of a block of
+     * words in one parallel pass each, replacing those of the previous block.
+     * Generated forms are not cached, as an export is a one-off pass: memory
+     * use does not grow with the size of the lexicon.
+     * @param block words about to be written
+     */
+    private void loadBlock(ConWord[] block) {
+        wordProcs = core.getWordCollection().getPronunciationBatch(block);
+        wordRoms = core.getRomManager().getPronunciationBatch(block);
+        wordParadigms = core.getWordCollection().getParadigms(block, false);
+    }
+    
     /**
      * Exports a dictionary to an excel file
      *
@@ -236,6 +293,11 @@ public class ExcelExport {
     private void export(String fileName, boolean separateDeclensions) throws IOException {
         this.recordWords(separateDeclensions);
         
+        // drop generated values of the last block once written
+        wordProcs = null;
+        wordRoms = null;
+        wordParadigms = null;
+        
         // record types on sheet
         sheet = workbook.createSheet("Parts of Speech");
 
@@ -260,33 +322,32 @@ public class ExcelExport {
         
         if (classes.length != 0) {
             sheet = workbook.createSheet("Lexical Classes");
-            int propertyColumn = 0;
-            for (WordClass curProp : classes) {
-                // get row, if not exist, create
-                row = sheet.getRow(0);
-                if (row == null) {
-                    row = sheet.createRow(0);
-                }
-
+            
+            // one column per class, written a row at a time (streamed sheets cannot revisit rows)
+            WordClassValue[][] classValues = new WordClassValue[classes.length][];
+            int valueRows = 0;
+            row = sheet.createRow(0);
+            
+            for (int propertyColumn = 0; propertyColumn < classes.length; propertyColumn++) {
+                WordClass curProp = classes[propertyColumn];
+                classValues[propertyColumn] = curProp.getValues().toArray(new WordClassValue[0]);
+                valueRows = Math.max(valueRows, classValues[propertyColumn].length);
+                
                 Cell cell = row.createCell(propertyColumn);
                 cell.setCellValue(curProp.getValue());
                 cell.setCellStyle(boldHeader);
-
-                int rowIndex = 1;
-                for (WordClassValue curVal : curProp.getValues()) {
-                    row = sheet.getRow(rowIndex);
-                    if (row == null) {
-                        row = sheet.createRow(rowIndex);
+            }
+            
+            for (int rowIndex = 1; rowIndex <= valueRows; rowIndex++) {
+                row = sheet.createRow(rowIndex);
+                
+                for (int propertyColumn = 0; propertyColumn < classes.length; propertyColumn++) {
+                    if (rowIndex <= classValues[propertyColumn].length) {
+                        Cell cell = row.createCell(propertyColumn);
+                        cell.setCellStyle(localStyle);
+                        cell.setCellValue(classValues[propertyColumn][rowIndex - 1].getValue());
                     }
-
-                    cell = row.createCell(propertyColumn);
-                    cell.setCellStyle(localStyle);
-                    cell.setCellValue(curVal.getValue());
-
-                    rowIndex++;
                 }
-
-                propertyColumn++;
             }
         }
 
@@ -317,20 +378,23 @@ public class ExcelExport {
             }
         } catch (IOException e) {
             throw new IOException("Unable to write file: " + fileName);
+        } finally {
+            // streamed rows are buffered in temporary files until disposed
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
         }
     }
     
     private void recordWords(boolean separateDeclensions) {
         // separate words by part of speech if requested so that each POS can have distinct declension columns
         if (separateDeclensions) {
-            // create separate page for each part of speech
+            // create separate page for each part of speech, partitioning the lexicon once
+            Map<Integer, ConWord[]> wordsByType = core.getWordCollection().getWordNodesByType();
             
             for (TypeNode type : core.getTypes().getNodes()) {
-                ConWord filter = new ConWord();
-                filter.setWordTypeId(type.getId());
-                
                 try {
-                    ConWord[] list = core.getWordCollection().filteredList(filter);
+                    ConWord[] list = wordsByType.getOrDefault(type.getId(), new ConWord[0]);
 
                     // don't make a sheet for types with no words
                     if (list.length == 0) {
@@ -358,21 +422,25 @@ public class ExcelExport {
                     row.createCell(colNum + 1).setCellValue("DEFINITION");
                 
                     int rowCount = 1;
-                    for (ConWord word : list) {
-                        row = sheet.createRow(rowCount);
+                    for (ConWord[] block : getBlocks(list)) {
+                        loadBlock(block);
                         
-                        Object[] wordArray = getWordForm(word, conjList).toArray();
-                        for (int colCount = 0; colCount < wordArray.length; colCount++) {
-                            Cell cell = row.createCell(colCount);
-                            cell.setCellValue((String)wordArray[colCount]);
-
-                            if (colCount == 0 || (colCount > 4 && colCount < wordArray.length - 1)) {
-                                cell.setCellStyle(conStyle);
-                            } else {
-                                cell.setCellStyle(localStyle);
+                        for (ConWord word : block) {
+                            row = sheet.createRow(rowCount);
+
+                            Object[] wordArray = getWordForm(word, conjList).toArray();
+                            for (int colCount = 0; colCount < wordArray.length; colCount++) {
+                                Cell cell = row.createCell(colCount);
+                                cell.setCellValue((String)wordArray[colCount]);
+
+                                if (colCount == 0 || (colCount > 4 && colCount < wordArray.length - 1)) {
+                                    cell.setCellStyle(conStyle);
+                                } else {
+                                    cell.setCellStyle(localStyle);
+                                }
                             }
+                            rowCount++;
                         }
-                        rowCount++;
                     }
                 } catch (Exception e) {
                     System.out.println( "Unable to export " + type.getValue() + " lexical values");
@@ -403,27 +471,31 @@ public class ExcelExport {
         //for (Integer i = 1; wordIt.hasNext(); i++) {
         //    ConWord word = wordIt.next();
         int i = 0;
-        for (ConWord word : core.getWordCollection().getWordNodes()) {
-            i++;
-            ConjugationPair[] decList;
+        for (ConWord[] block : getBlocks(core.getWordCollection().getWordNodes())) {
+            loadBlock(block);
             
-            if (typeDecMap.containsKey(word.getWordTypeId())) {
-                decList = typeDecMap.get(word.getWordTypeId());
-            } else {
-                decList = core.getConjugationManager().getAllCombinedIds(word.getWordTypeId());
-                typeDecMap.put(word.getWordTypeId(), decList);
-            }
-            
-            Object[] wordArray = getWordFormOld(word, decList);
-            row = sheet.createRow(i);
-            for (Integer j = 0; j < wordArray.length; j++) {
-                Cell cell = row.createCell(j);
-                cell.setCellValue((String) wordArray[j]);
+            for (ConWord word : block) {
+                i++;
+                ConjugationPair[] decList;
 
-                if (j == 0) {
-                    cell.setCellStyle(conStyle);
+                if (typeDecMap.containsKey(word.getWordTypeId())) {
+                    decList = typeDecMap.get(word.getWordTypeId());
                 } else {
-                    cell.setCellStyle(localStyle);
+                    decList = core.getConjugationManager().getAllCombinedIds(word.getWordTypeId());
+                    typeDecMap.put(word.getWordTypeId(), decList);
+                }
+
+                Object[] wordArray = getWordFormOld(word, decList);
+                row = sheet.createRow(i);
+                for (Integer j = 0; j < wordArray.length; j++) {
+                    Cell cell = row.createCell(j);
+                    cell.setCellValue((String) wordArray[j]);
+
+                    if (j == 0) {
+                        cell.setCellStyle(conStyle);
+                    } else {
+                        cell.setCellStyle(localStyle);
+                    }
                 }
             }
         }
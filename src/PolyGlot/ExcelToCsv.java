@@ -21,30 +21,62 @@ package PolyGlot;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * This class exists solely to convert Excel files into CSV files, which can
- * then be read natively by PolyGlot
+ * then be read natively by PolyGlot. Sheets are read as a stream of records
+ * (xls) or SAX events (xlsx) and each row is written out as soon as it is
+ * complete, so neither the workbook nor the CSV is ever held in memory whole.
  *
  * @author Draque Thompson
  */
 public class ExcelToCsv {
+    private static final String FORMULA_ERROR = "<CELL FORMULA ERROR>";
 
     /**
      * Creates csv file based on given excel.Uses double quotes for
@@ -59,74 +91,425 @@ public class ExcelToCsv {
      * @throws org.apache.poi.openxml4j.exceptions.InvalidFormatException if excel file of an unrecognized format
      */
     public static void readExcel(String excelFile, String targetFile, int sheetNum) throws IOException, FileNotFoundException, InvalidFormatException {
-        String csvString = read(new File(excelFile), sheetNum);
+        File file = new File(excelFile);
+        FileMagic format = FileMagic.valueOf(file);
         
-        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(targetFile), StandardCharsets.UTF_8)) {
-            writer.write(csvString);
+        if (format == FileMagic.OLE2) {
+            readXls(file, targetFile, sheetNum);
+        } else if (format == FileMagic.OOXML) {
+            readXlsx(file, targetFile, sheetNum);
+        } else {
+            throw new InvalidFormatException("Unrecognized Excel format: " + excelFile);
         }
     }
     
-    private static String read(File excelFile, int sheetNum) throws FileNotFoundException, IOException, InvalidFormatException {
-        String ret = "";
-        Workbook wb;
-        Sheet mySheet;
-        
-        try (InputStream myFile = new FileInputStream(excelFile)) {
-            wb = WorkbookFactory.create(myFile);
-            mySheet = wb.getSheetAt(sheetNum);
-            Iterator<Row> rowIterator = mySheet.iterator();
-
-            while (rowIterator.hasNext()) {
-                ret += readRow(rowIterator.next());
+    private static Writer openTarget(String targetFile) throws FileNotFoundException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(targetFile), StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Writes a single row of cells as a line of csv
+     * @param out writer to write to
+     * @param cells cell contents by column (null for cells which do not exist)
+     * @throws IOException on write error
+     */
+    private static void writeRow(Writer out, List<String> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            String cellContents = cells.get(i);
+            
+            // add comma to delimit cell contents
+            if (i != 0) {
+                out.write(',');
             }
+            
+            if (cellContents != null) {
+                out.write('"'); // cells encapsulated in double quotes to allow for multilines
+                out.write(cellContents.replace("\"", "\"\"")); // double-quotes must be escaped as 2x double-quotes
+                out.write('"');
+            }
+        }
+        
+        out.write('\n'); // ends row with newline
+    }
+    
+    private static void setCell(List<String> cells, int column, String cellContents) {
+        while (cells.size() <= column) {
+            cells.add(null);
         }
         
-        return ret;
+        cells.set(column, cellContents);
+    }
+    
+    private static void readXls(File excelFile, String targetFile, int sheetNum) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(excelFile, true);
+                Writer out = openTarget(targetFile)) {
+            XlsSheetListener listener = new XlsSheetListener(sheetNum, out);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(listener);
+            
+            try {
+                new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+            } catch (HSSFUserException e) {
+                throw (IOException) e.getCause();
+            }
+            
+            if (!listener.found) {
+                throw new IllegalArgumentException("Sheet index (" + sheetNum
+                        + ") is out of range (0.." + listener.sheetIndex + ")");
+            }
+        }
     }
     
-    private static String readRow(Row row) {
-        String ret = "";
-        int columnCount = row.getLastCellNum();
-        
-        for (int i = 0; i < columnCount; i++) {
-            Cell cell = row.getCell(i);
-            String cellContents = "";
-            
-            if (cell != null) {
-                if (null!=cell.getCellType()) switch (cell.getCellType()) {
-                    case STRING:
-                        cellContents = cell.getStringCellValue();
-                        break;
-                    case NUMERIC:
-                        cellContents = Double.toString(cell.getNumericCellValue());
-                        break;
-                    case BOOLEAN:
-                        cellContents = Boolean.toString(cell.getBooleanCellValue());
-                        break;
-                    case ERROR:
-                        cellContents = "<CELL FORMULA ERROR>";
-                        break;
-                    case BLANK:
-                    case _NONE:
-                        cellContents = "";
-                        break;
-                    default:
-                        cellContents = "";
-                        break;
+    private static void readXlsx(File excelFile, String targetFile, int sheetNum) throws IOException, InvalidFormatException {
+        OPCPackage pkg = OPCPackage.open(excelFile, PackageAccess.READ);
+        
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            InputStream sheet = null;
+            int sheetIndex = 0;
+            
+            while (sheet == null && sheets.hasNext()) {
+                InputStream curSheet = sheets.next();
+                
+                if (sheetIndex == sheetNum) {
+                    sheet = curSheet;
+                } else {
+                    curSheet.close();
+                    sheetIndex++;
+                }
+            }
+            
+            if (sheet == null) {
+                throw new IllegalArgumentException("Sheet index (" + sheetNum
+                        + ") is out of range (0.." + (sheetIndex - 1) + ")");
+            }
+            
+            List<String> sharedStrings = new ArrayList<>();
+            
+            for (PackagePart part : pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType())) {
+                try (InputStream stringStream = part.getInputStream()) {
+                    parseXml(stringStream, new SharedStringsHandler(sharedStrings));
+                }
+            }
+            
+            try (InputStream sheetStream = sheet; Writer out = openTarget(targetFile)) {
+                parseXml(sheetStream, new XlsxSheetHandler(sharedStrings, out));
+            }
+        } catch (OpenXML4JException e) {
+            throw new InvalidFormatException(e.getLocalizedMessage());
+        } finally {
+            pkg.revert();
+        }
+    }
+    
+    private static void parseXml(InputStream stream, DefaultHandler handler) throws IOException {
+        try {
+            XMLReader reader = XMLHelper.newXMLReader();
+            reader.setContentHandler(handler);
+            reader.parse(new InputSource(stream));
+        } catch (SAXException e) {
+            // write errors are tunneled out of the handler
+            if (e.getException() instanceof IOException) {
+                throw (IOException) e.getException();
+            }
+            
+            throw new IOException("Unable to parse Excel file: " + e.getLocalizedMessage(), e);
+        } catch (ParserConfigurationException e) {
+            throw new IOException("Unable to parse Excel file: " + e.getLocalizedMessage(), e);
+        }
+    }
+    
+    /**
+     * Converts records of a single xls worksheet. Rows in xls files are stored
+     * in blocks: a run of row records, then the cells of those rows. Only the
+     * current block is buffered, and written out once the next block starts.
+     */
+    private static final class XlsSheetListener extends AbortableHSSFListener {
+        private final int sheetNum;
+        private final Writer out;
+        private final Map<Integer, List<String>> rowBlock = new TreeMap<>();
+        private SSTRecord sst;
+        private int depth = 0;
+        private int sheetIndex = -1;
+        private boolean inSheet = false;
+        private boolean found = false;
+        private boolean cellsInBlock = false;
+        
+        XlsSheetListener(int _sheetNum, Writer _out) {
+            sheetNum = _sheetNum;
+            out = _out;
+        }
+        
+        @Override
+        public short abortableProcessRecord(Record record) throws HSSFUserException {
+            short ret = 0;
+            
+            try {
+                if (record instanceof BOFRecord) {
+                    // top level substreams after the workbook globals are sheets
+                    if (depth == 0 && ((BOFRecord) record).getType() != BOFRecord.TYPE_WORKBOOK) {
+                        sheetIndex++;
+                        inSheet = sheetIndex == sheetNum;
+                        found = found || inSheet;
+                    }
+                    
+                    depth++;
+                } else if (record instanceof EOFRecord) {
+                    depth--;
+                    
+                    if (depth == 0 && inSheet) {
+                        flushRows();
+                        inSheet = false;
+                        ret = 1; // nothing further needed from workbook
+                    }
+                } else if (record instanceof SSTRecord) {
+                    sst = (SSTRecord) record;
+                } else if (inSheet && depth == 1) {
+                    readSheetRecord(record);
+                }
+            } catch (IOException e) {
+                throw new HSSFUserException(e.getLocalizedMessage(), e);
+            }
+            
+            return ret;
+        }
+        
+        private void readSheetRecord(Record record) throws IOException {
+            if (record instanceof RowRecord) {
+                if (cellsInBlock) {
+                    flushRows();
                 }
                 
-                cellContents = cellContents.replace("\"", "\"\""); // double-quotes must be escaped as 2x double-quotes
-                cellContents = "\"" + cellContents + "\""; // cells encapsulated in double quotes to allow for multilines
+                getRow(((RowRecord) record).getRowNumber());
+            } else if (record instanceof MulBlankRecord) {
+                MulBlankRecord blanks = (MulBlankRecord) record;
+                
+                for (int i = 0; i < blanks.getNumColumns(); i++) {
+                    setCell(getRow(blanks.getRow()), blanks.getFirstColumn() + i, "");
+                }
+                
+                cellsInBlock = true;
+            } else if (record instanceof CellValueRecordInterface) {
+                CellValueRecordInterface cell = (CellValueRecordInterface) record;
+                setCell(getRow(cell.getRow()), cell.getColumn(), getCellContents(record));
+                cellsInBlock = true;
+            }
+        }
+        
+        private String getCellContents(Record record) {
+            String ret = "";
+            
+            if (record instanceof LabelSSTRecord) {
+                ret = sst.getString(((LabelSSTRecord) record).getSSTIndex()).getString();
+            } else if (record instanceof LabelRecord) {
+                ret = ((LabelRecord) record).getValue();
+            } else if (record instanceof NumberRecord) {
+                ret = Double.toString(((NumberRecord) record).getValue());
+            } else if (record instanceof BoolErrRecord) {
+                BoolErrRecord boolErr = (BoolErrRecord) record;
+                ret = boolErr.isBoolean() ? Boolean.toString(boolErr.getBooleanValue()) : FORMULA_ERROR;
+            }
+            // formula and blank cells are written empty
+            
+            return ret;
+        }
+        
+        private List<String> getRow(int rowNum) {
+            return rowBlock.computeIfAbsent(rowNum, (k) -> new ArrayList<>());
+        }
+        
+        private void flushRows() throws IOException {
+            for (List<String> row : rowBlock.values()) {
+                writeRow(out, row);
             }
             
-            ret += cellContents + ","; // add comma to delimit cell contents
+            rowBlock.clear();
+            cellsInBlock = false;
+        }
+    }
+    
+    /**
+     * Reads the shared string table of an xlsx workbook
+     */
+    private static final class SharedStringsHandler extends DefaultHandler {
+        private final List<String> strings;
+        private final StringBuilder text = new StringBuilder();
+        private boolean inText = false;
+        private boolean inPhonetic = false;
+        
+        SharedStringsHandler(List<String> _strings) {
+            strings = _strings;
+        }
+        
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "si":
+                    text.setLength(0);
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                case "t":
+                    inText = !inPhonetic;
+                    break;
+            }
+        }
+        
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "si":
+                    strings.add(text.toString());
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "t":
+                    inText = false;
+                    break;
+            }
         }
         
-        // if row not empty, eliminate trailing comma
-        if (!ret.isEmpty()) {
-            ret = ret.substring(0, ret.length() - 1);
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                text.append(ch, start, length);
+            }
+        }
+    }
+    
+    /**
+     * Converts SAX events of a single xlsx worksheet, writing each row as its
+     * closing tag is reached
+     */
+    private static final class XlsxSheetHandler extends DefaultHandler {
+        private final List<String> sharedStrings;
+        private final Writer out;
+        private final List<String> cells = new ArrayList<>();
+        private final StringBuilder value = new StringBuilder();
+        private final StringBuilder inlineText = new StringBuilder();
+        private int column = -1;
+        private String cellType = null;
+        private boolean isFormula = false;
+        private boolean inValue = false;
+        private boolean inInline = false;
+        private boolean inInlineText = false;
+        private boolean inPhonetic = false;
+        
+        XlsxSheetHandler(List<String> _sharedStrings, Writer _out) {
+            sharedStrings = _sharedStrings;
+            out = _out;
+        }
+        
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    cells.clear();
+                    column = -1;
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    column = ref == null ? column + 1 : getColumn(ref);
+                    cellType = attributes.getValue("t");
+                    isFormula = false;
+                    value.setLength(0);
+                    inlineText.setLength(0);
+                    break;
+                case "f":
+                    isFormula = true;
+                    break;
+                case "v":
+                    inValue = true;
+                    break;
+                case "is":
+                    inInline = true;
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                case "t":
+                    inInlineText = inInline && !inPhonetic;
+                    break;
+            }
+        }
+        
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "row":
+                    try {
+                        writeRow(out, cells);
+                    } catch (IOException e) {
+                        throw new SAXException(e);
+                    }
+                    break;
+                case "c":
+                    setCell(cells, column, getCellContents());
+                    break;
+                case "v":
+                    inValue = false;
+                    break;
+                case "is":
+                    inInline = false;
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "t":
+                    inInlineText = false;
+                    break;
+            }
         }
         
-        return ret + "\n"; // ends row with newline
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                value.append(ch, start, length);
+            } else if (inInlineText) {
+                inlineText.append(ch, start, length);
+            }
+        }
+        
+        private String getCellContents() {
+            String ret;
+            String cellValue = value.toString();
+            
+            // formula cells are written empty, matching blank cells
+            if (isFormula) {
+                ret = "";
+            } else if ("inlineStr".equals(cellType)) {
+                ret = inlineText.toString();
+            } else if (cellValue.isEmpty()) {
+                ret = "";
+            } else if (cellType == null || cellType.equals("n")) {
+                ret = Double.toString(Double.parseDouble(cellValue));
+            } else if (cellType.equals("s")) {
+                ret = sharedStrings.get(Integer.parseInt(cellValue.trim()));
+            } else if (cellType.equals("b")) {
+                ret = Boolean.toString(cellValue.equals("1"));
+            } else if (cellType.equals("e")) {
+                ret = FORMULA_ERROR;
+            } else {
+                ret = cellValue;
+            }
+            
+            return ret;
+        }
+        
+        /**
+         * Gets zero based column index from a cell reference such as "AB12"
+         */
+        private static int getColumn(String ref) {
+            int ret = 0;
+            
+            for (int i = 0; i < ref.length() && Character.isLetter(ref.charAt(i)); i++) {
+                ret = ret * 26 + (Character.toUpperCase(ref.charAt(i)) - 'A' + 1);
+            }
+            
+            return ret - 1;
+        }
     }
 }
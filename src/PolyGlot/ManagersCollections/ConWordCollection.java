@@ -26,22 +26,31 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import PolyGlot.Nodes.ConWord;
 import PolyGlot.DictCore;
+import PolyGlot.Exceptions.RegexTimeoutException;
 import PolyGlot.FormattedTextHelper;
 import PolyGlot.Nodes.ConjugationNode;
 import PolyGlot.Nodes.ConjugationPair;
+import PolyGlot.Nodes.DictNode;
 import PolyGlot.Nodes.EtyExternalParent;
 import PolyGlot.PGTUtil;
 import PolyGlot.Nodes.TypeNode;
 import PolyGlot.RankedObject;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.IntStream;
 import PolyGlot.RegexTools;
 import PolyGlot.RegexTools.ReplaceOptions;
 import org.w3c.dom.Document;
@@ -56,12 +65,18 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
     private static final String SPLIT_CHAR = ",";
     private final DictCore core;
     private boolean orderByLocal = false;
+    private boolean compactDefinitions = false;
+    private ConWordSearchIndex searchIndex = null;
+    private final WordFormIndex formIndex;
+    // live count of local word values, maintained as words are added, changed and removed
+    private final Map<String, Integer> localCounts = new HashMap<>();
 
     public ConWordCollection(DictCore _core) {
         super(new ConWord());
 
         bufferNode.setCore(_core);
         core = _core;
+        formIndex = new WordFormIndex(_core);
     }
 
     /**
@@ -84,6 +99,10 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
         bufferNode.setCore(core);
         ret = super.insert(_id, bufferNode);
 
+        if (searchIndex != null) {
+            searchIndex.update(bufferNode);
+        }
+
         bufferNode = new ConWord();
         bufferNode.setCore(core);
 
@@ -96,17 +115,17 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
      * @return an iterator full of all illegal conwords
      */
     public ConWord[] illegalFilter() {
-        List<ConWord> retList = new ArrayList<>();
-
-        for (ConWord curWord : nodeMap.values()) {
-            if ((!curWord.isWordLegal() && !curWord.isRulesOverride()) 
-                    && !retList.contains(curWord)) {
-                retList.add(curWord);
-            }
-        }
+        return validateLexicon(true).getIllegalWords();
+    }
 
-        this.safeSort(retList);
-        return retList.toArray(new ConWord[0]);
+    /**
+     * Checks legality of every word in the lexicon in one batch
+     *
+     * @param parallel true to check words in parallel
+     * @return report of all illegal words and their problems
+     */
+    public LexiconValidator.Report validateLexicon(boolean parallel) {
+        return new LexiconValidator(core).validate(parallel);
     }
     
     /**
@@ -127,7 +146,7 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
      * @return ConWord with any illegal entries saved as word values
      */
     public ConWord testWordLegality(ConWord word) {
-        return this.testWordLegality(word, this.getConWordCount(), this.getLocalCount());
+        return this.testWordLegality(word, null, null, null);
     }
     
     /**
@@ -139,6 +158,23 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
      * @return ConWord with any illegal entries saved as word values
      */
     public ConWord testWordLegality(ConWord word, Map<String, Integer> wordCount, Map<String, Integer> localCount) {
+        return testWordLegality(word, wordCount, localCount, null);
+    }
+
+    /**
+     * Checks whether word is legal and returns error reason if not
+     *
+     * @param word word to check legality of
+     * @param wordCount map of conword values to the number of times they appear
+     * in a word (null to use live counts)
+     * @param localCount map of localword values to the number of times they
+     * appear in a word (null to use live counts)
+     * @param posPatterns precompiled part of speech patterns by type ID (see
+     * LexiconValidator.compilePosPatterns()), null to compile per call
+     * @return ConWord with any illegal entries saved as word values
+     */
+    public ConWord testWordLegality(ConWord word, Map<String, Integer> wordCount, 
+            Map<String, Integer> localCount, Map<Integer, Pattern> posPatterns) {
         ConWord ret = new ConWord();
         String pronunciation = "";
         
@@ -162,8 +198,8 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
         }
 
         if (core.getPropertiesManager().isWordUniqueness() 
-                && wordCount.containsKey(word.getValue())
-                && wordCount.get(word.getValue()) > 1) {
+                && (wordCount == null ? getValueCount(word.getValue()) 
+                        : wordCount.getOrDefault(word.getValue(), 0)) > 1) {
             ret.setValue(ret.getValue() + (ret.getValue().isEmpty() ? "" : "\n")
                     + core.conLabel() + " words set to enforced unique: this conword exists elsewhere.");
         }
@@ -171,8 +207,8 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
         String localWord = word.getLocalWord();
         if (core.getPropertiesManager().isLocalUniqueness() 
                 && !localWord.isEmpty()
-                && localCount.containsKey(localWord)
-                && localCount.get(localWord) > 1) {
+                && (localCount == null ? localCounts.getOrDefault(localWord, 0) 
+                        : localCount.getOrDefault(localWord, 0)) > 1) {
             ret.setLocalWord(ret.getLocalWord() + (ret.getLocalWord().isEmpty() ? "" : "\n")
                     + core.localLabel() + " words set to enforced unique: this local exists elsewhere.");
         }
@@ -189,9 +225,28 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
                         + "Pronunciation required for " + wordPos.getValue() + " words.");
             }
             
-            if (!posRegex.isEmpty() && RegexTools.isRegexLegal(posRegex) && !word.getValue().matches(posRegex)) {
+            boolean patternMismatch;
+            String patternProblem = "Word does not match enforced pattern for type: " + word.getWordTypeDisplay() + ".";
+            String patternLabel = "Pattern of part of speech \"" + wordPos.getValue() + "\"";
+            
+            try {
+                if (posPatterns != null) {
+                    Pattern posPattern = posPatterns.get(wordPos.getId());
+                    patternMismatch = posPattern != null
+                            && !RegexTools.guardedMatcher(posPattern, word.getValue(), patternLabel).matches();
+                } else {
+                    patternMismatch = !posRegex.isEmpty() && RegexTools.isRegexLegal(posRegex)
+                            && !RegexTools.guardedMatches(word.getValue(), posRegex, patternLabel);
+                }
+            } catch (RegexTimeoutException e) {
+                // a runaway pattern cannot confirm the word, so is reported in place of the mismatch
+                patternMismatch = true;
+                patternProblem = e.getLocalizedMessage();
+            }
+            
+            if (patternMismatch) {
                 ret.setDefinition(ret.getDefinition() + (ret.getDefinition().isEmpty() ? "" : "\n")
-                        + "Word does not match enforced pattern for type: " + word.getWordTypeDisplay() + ".");
+                        + patternProblem);
                 ret.setProcOverride(true);
             }
             
@@ -236,64 +291,102 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
 
     /**
      * Tests whether a value exists in the dictionary currently
-     * Do not use this within a loop.
      *
      * @param conWord value to search for
      * @return true if exists, false otherwise
      */
     public boolean testWordValueExists(String conWord) {
-        return true;
+        return getValueCount(conWord) > 0;
     }
 
     /**
      * Tests whether a value exists in the dictionary currently
-     * Do not use this within a loop.
      * 
      * @param local value to search for
      * @return true if exists, false otherwise
      */
     public boolean testLocalValueExists(String local) {
-        return false;
+        return localCounts.getOrDefault(local, 0) > 0;
     }
     
     /**
-     * Generates and returns map with strings to count of
-     * string occurrences within local words of the lexicon
+     * Returns map with strings to count of string occurrences within local
+     * words of the lexicon (copy of live counts)
      * @return 
      */
     public Map<String, Integer> getLocalCount() {
-        Map<String, Integer> ret = new HashMap<>();
-        
-        for (ConWord word : this.nodeMap.values()) {
-            String local = word.getLocalWord();
-            if (ret.containsKey(local)) {
-                ret.replace(local, ret.get(local) + 1);
-            } else {
-                ret.put(local,1);
-            }
-        }
-        
-        return ret;
+        return new HashMap<>(localCounts);
     }
     
     /**
-     * Generates and returns map with strings to count of
-     * string occurrences within conlang words of the lexicon
+     * Returns map with strings to count of string occurrences within conlang
+     * words of the lexicon
      * @return 
      */
     public Map<String, Integer> getConWordCount() {
         Map<String, Integer> ret = new HashMap<>();
         
-        for (ConWord word : this.nodeMap.values()) {
-            String local = word.getValue();
-            if (ret.containsKey(local)) {
-                ret.replace(local, ret.get(local) + 1);
-            } else {
-                ret.put(local,1);
+        getValueMapping().entrySet().forEach((entry) -> {
+            ret.put(entry.getKey(), entry.getValue().size());
+        });
+        
+        return ret;
+    }
+    
+    @Override
+    protected void nodeAdded(ConWord node) {
+        super.nodeAdded(node);
+        localCounts.merge(node.getLocalWord(), 1, Integer::sum);
+    }
+    
+    @Override
+    protected void nodeRemoved(ConWord node) {
+        super.nodeRemoved(node);
+        decrementLocal(node.getLocalWord());
+    }
+    
+    /**
+     * Called by words when their local value changes, keeping local counts
+     * current. Ignored for words not (or no longer) in this collection.
+     * @param word word whose local value changed
+     * @param oldLocal local value prior to change
+     */
+    public void localWordChanged(ConWord word, String oldLocal) {
+        if (getMember(word) != null && !oldLocal.equals(word.getLocalWord())) {
+            decrementLocal(oldLocal);
+            localCounts.merge(word.getLocalWord(), 1, Integer::sum);
+
+            if (searchIndex != null) {
+                searchIndex.update(word);
             }
         }
+    }
+    
+    /**
+     * Called by words when their definition changes, keeping the search index
+     * current. Ignored for words not (or no longer) in this collection.
+     * @param word word whose definition changed
+     */
+    public void definitionChanged(ConWord word) {
+        if (searchIndex != null && getMember(word) != null) {
+            searchIndex.update(word);
+        }
+    }
+    
+    @Override
+    public void nodeValueChanged(DictNode node, String oldValue) {
+        super.nodeValueChanged(node, oldValue);
         
-        return ret;
+        ConWord member = getMember(node);
+        
+        if (searchIndex != null && member != null && !Objects.equals(oldValue, member.getValue())) {
+            searchIndex.update(member);
+        }
+    }
+    
+    private void decrementLocal(String local) {
+        // removes entry once count falls to zero
+        localCounts.computeIfPresent(local, (k, count) -> count > 1 ? count - 1 : null);
     }
 
     /**
@@ -306,12 +399,22 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
     public void deleteNodeById(Integer _id) throws Exception {
         super.deleteNodeById(_id);
         core.getConjugationManager().clearAllConjugationsWord(_id);
+
+        if (searchIndex != null) {
+            searchIndex.remove(_id);
+        }
+
+        formIndex.remove(_id);
     }
 
     @Override
     public void modifyNode(Integer _id, ConWord _modNode) throws Exception {
         _modNode.setCore(core);
         super.modifyNode(_id, _modNode);
+
+        if (searchIndex != null) {
+            searchIndex.update(_modNode);
+        }
     }
 
     /**
@@ -327,7 +430,52 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
     protected Integer insert(Integer _id, ConWord _buffer) throws Exception {
         _buffer.setCore(core);
         _buffer.setParent(this);
-        return super.insert(_id, _buffer);
+        Integer ret = super.insert(_id, _buffer);
+
+        if (searchIndex != null) {
+            searchIndex.update(_buffer);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Turns the n-gram search index on or off. When on, searches only examine
+     * words which could contain the searched text rather than every word in
+     * the lexicon. The index is built on enabling and maintained as words are
+     * inserted, modified and deleted, and as words report in place changes to
+     * their value, local word or definition.
+     *
+     * @param useIndex whether to index words for searching
+     */
+    public void setUseSearchIndex(boolean useIndex) {
+        if (useIndex && searchIndex == null) {
+            searchIndex = new ConWordSearchIndex();
+            nodeMap.values().forEach(searchIndex::update);
+        } else if (!useIndex) {
+            searchIndex = null;
+        }
+    }
+
+    public boolean isUseSearchIndex() {
+        return searchIndex != null;
+    }
+
+    /**
+     * Gets IDs of words which may contain the given text in the given field
+     *
+     * @param field field to search
+     * @param text text searched for
+     * @return candidate IDs, or null if all words must be examined
+     */
+    private Set<Integer> getSearchCandidates(ConWordSearchIndex.Field field, String text) {
+        Set<Integer> ret = null;
+
+        if (searchIndex != null) {
+            ret = searchIndex.getCandidates(field, text);
+        }
+
+        return ret;
     }
 
     /**
@@ -347,10 +495,20 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
         if (!_match.isEmpty()) {
             Entry<Integer, ConWord> curEntry;
             ConWord curWord;
+            Set<Integer> candidates = getSearchCandidates(ConWordSearchIndex.Field.VALUE, _match);
+
+            if (candidates != null) {
+                candidates.addAll(getSearchCandidates(ConWordSearchIndex.Field.DEFINITION, _match));
+            }
 
-            // cycles through all words, searching for matches
+            // cycles through all words, searching for matches (walked in map order to keep ranking ties stable)
             while (allWords.hasNext()) {
                 curEntry = allWords.next();
+
+                if (candidates != null && !candidates.contains(curEntry.getKey())) {
+                    continue;
+                }
+
                 curWord = curEntry.getValue();
 
                 String word = curWord.getValue();
@@ -377,7 +535,8 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
                 }
             }
 
-            Collections.sort(definitionContains);
+            // stable sort by match position (RankedObject never reports ties, which larger lists reject)
+            definitionContains.sort(Comparator.comparingInt(RankedObject::getRank));
 
             // concatenate results
             ret.addAll(localEquals);
@@ -406,130 +565,195 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
      * @throws Exception on filtering error
      */
     public ConWord[] filteredList(ConWord _filter) throws Exception {
-        ConWordCollection retValues = new ConWordCollection(core);
-        retValues.setAlphaOrder(alphaOrder);
+        return filteredList(compileFilter(_filter));
+    }
 
-        Iterator<Entry<Integer, ConWord>> filterList = nodeMap.entrySet().iterator();
-        Entry<Integer, ConWord> curEntry;
-        ConWord curWord;
-        // definition search should always ignore case
-        _filter.setDefinition(_filter.getDefinition().toLowerCase());
+    /**
+     * Filters the entire dictionary with a previously compiled filter. Use
+     * this rather than filteredList(ConWord) when applying the same filter
+     * repeatedly. Filters matching against conjugated forms are tested in
+     * parallel.
+     *
+     * @param plan filter compiled via compileFilter()
+     * @return an list of conwords which match the given search
+     * @throws Exception on filtering error
+     */
+    public ConWord[] filteredList(FilterPlan plan) throws Exception {
+        return filteredList(plan, plan.isMatchingDeclensions());
+    }
 
-        // set filter to lowercase if ignoring case
-        if (core.getPropertiesManager().isIgnoreCase()) {
-            _filter.setDefinition(_filter.getDefinition().toLowerCase());
-            _filter.setLocalWord(_filter.getLocalWord().toLowerCase());
-            _filter.setValue(_filter.getValue().toLowerCase());
-            _filter.setPronunciation(_filter.getPronunciation().toLowerCase());
-        }
+    /**
+     * Filters the entire dictionary with a previously compiled filter,
+     * optionally testing words in parallel (on the common fork-join pool).
+     * Parallel filtering pays off for filters which match against
+     * conjugated forms, as every form of every word must be generated.
+     * Results are identical either way.
+     *
+     * @param plan filter compiled via compileFilter()
+     * @param parallel true to test words in parallel
+     * @return an list of conwords which match the given search
+     * @throws Exception on filtering error
+     */
+    public ConWord[] filteredList(FilterPlan plan, boolean parallel) throws Exception {
+        // stable snapshot: words in ID order so that words which sort as equal keep a consistent order
+        ConWord[] snapshot = getFilterCandidates(plan).toArray(new ConWord[0]);
+        Arrays.sort(snapshot, (a, b) -> a.getId().compareTo(b.getId()));
 
-        while (filterList.hasNext()) {
-            curEntry = filterList.next();
-            curWord = curEntry.getValue();
-            try {
-                // definition should always ignore case
-                String definition = FormattedTextHelper.getTextBody(curWord.getDefinition()).toLowerCase();
-                int type = curWord.getWordTypeId();
-                String local;
-                String proc;
+        boolean[] hits = new boolean[snapshot.length];
+        Exception[] errors = new Exception[snapshot.length];
 
-                // if set to ignore case, set up caseless matches, normal otherwise
-                if (core.getPropertiesManager().isIgnoreCase()) {
-                    local = curWord.getLocalWord().toLowerCase();
-                    proc = curWord.getPronunciation().toLowerCase();
-                } else {
-                    local = curWord.getLocalWord();
-                    proc = curWord.getPronunciation();
+        if (parallel) {
+            IntStream.range(0, snapshot.length).parallel().forEach((i) -> {
+                try {
+                    hits[i] = plan.matches(snapshot[i]);
+                } catch (Exception e) {
+                    errors[i] = e;
+                }
+            });
+        } else {
+            for (int i = 0; i < snapshot.length; i++) {
+                try {
+                    hits[i] = plan.matches(snapshot[i]);
+                } catch (Exception e) {
+                    errors[i] = e;
+                    break;
                 }
+            }
+        }
 
-                // each filter test split up to minimize compares                
-                // definition
-                if (!_filter.getDefinition().trim().isEmpty()) {
-                    boolean cont = true;
+        List<ConWord> retList = new ArrayList<>();
 
-                    for (String def1 : _filter.getDefinition().split(SPLIT_CHAR)) {
-                        if (definition.matches(".*" + def1 + ".*")) {
-                            cont = false;
-                            break;
-                        }
-                    }
+        for (int i = 0; i < snapshot.length; i++) {
+            // report the first failing word, as a sequential pass would
+            if (errors[i] != null) {
+                // IOHandler.writeErrorLog(e);
+                throw new Exception("FILTERING ERROR: " + errors[i].getMessage(), errors[i]);
+            }
 
-                    if (cont) {
-                        continue;
-                    }
-                }
+            if (hits[i]) {
+                retList.add(snapshot[i]);
+            }
+        }
 
-                // type (exact match only)
-                if (_filter.getWordTypeId() != 0
-                        && type != _filter.getWordTypeId()) {
-                    continue;
-                }
+        this.safeSort(retList);
 
-                // local word
-                if (!_filter.getLocalWord().trim().isEmpty()) {
-                    String match = _filter.getLocalWord().trim();
-                    
-                    if (!local.contains(match)
-                            && !local.matches(match)) {
-                        continue;
-                    }
-                }
+        return retList.toArray(new ConWord[0]);
+    }
 
-                // con word
-                if (!_filter.getValue().trim().isEmpty()) {
-                    boolean cont = true;
+    /**
+     * Compiles the values set on a filter word into a reusable filter plan.
+     * Patterns are compiled and filter text is split and case adjusted once
+     * here rather than once per word filtered. As always, case adjustments
+     * are applied to the filter word itself.
+     *
+     * @param _filter A conword object containing filter values
+     * @return compiled filter
+     * @throws Exception if the filter's pronunciation cannot be generated
+     */
+    public FilterPlan compileFilter(ConWord _filter) throws Exception {
+        return new FilterPlan(_filter);
+    }
 
-                    for (String val1 : _filter.getValue().split(SPLIT_CHAR)) {
-                        if (matchHeadAndDeclensions(val1, curWord)) {
-                            cont = false;
-                            break;
-                        }
-                    }
+    /**
+     * Narrows the words a filter must be tested against using the search
+     * index. Only literal (non-regex) definition and local word filters can be
+     * narrowed this way.
+     *
+     * @param plan compiled filter
+     * @return words which may match the filter
+     */
+    private List<ConWord> getFilterCandidates(FilterPlan plan) {
+        Set<Integer> candidates = null;
 
-                    if (cont) {
-                        continue;
-                    }
-                }
+        if (searchIndex != null) {
+            if (plan.definitionTerms != null) {
+                Set<Integer> defCandidates = new HashSet<>();
+
+                // any one definition term matching is sufficient: candidates are the union of each term's
+                for (FilterTerm def1 : plan.definitionTerms) {
+                    Set<Integer> termCandidates = isLiteral(def1.text)
+                            ? getSearchCandidates(ConWordSearchIndex.Field.DEFINITION, def1.text) : null;
 
-                // pronunciation
-                if (!_filter.getPronunciation().trim().isEmpty()) {
-                    String match = _filter.getPronunciation();
-                    
-                    if (!proc.contains(match)
-                            && !proc.matches(match)) {
-                        continue;
+                    if (termCandidates == null) {
+                        defCandidates = null;
+                        break;
                     }
+
+                    defCandidates.addAll(termCandidates);
                 }
-                
-                // etymological root
-                Object parent = _filter.getFilterEtyParent();
-                if (parent != null) {
-                    if (parent instanceof ConWord) {
-                        ConWord parWord = (ConWord)parent;
-                        if (parWord.getId() != -1 && !core.getEtymologyManager()
-                                .childHasParent(curWord.getId(), parWord.getId())) {
-                            continue;
-                        }
-                    }
-                    
-                    if (parent instanceof EtyExternalParent) {
-                        EtyExternalParent parExt = (EtyExternalParent)parent;
-                        if (parExt.getId() != -1 && !core.getEtymologyManager()
-                                .childHasExtParent(curWord.getId(), parExt.getUniqueId())) {
-                            continue;
-                        }
-                    } 
+
+                candidates = defCandidates;
+            }
+
+            if (plan.localTerm != null && isLiteral(plan.localTerm.text)) {
+                Set<Integer> localCandidates = getSearchCandidates(ConWordSearchIndex.Field.LOCAL, plan.localTerm.text);
+
+                if (candidates == null) {
+                    candidates = localCandidates;
+                } else if (localCandidates != null) {
+                    candidates.retainAll(localCandidates);
                 }
+            }
+        }
 
-                retValues.setBufferWord(curWord);
-                retValues.insert(curWord.getId());
-            } catch (Exception e) {
-                // IOHandler.writeErrorLog(e);
-                throw new Exception("FILTERING ERROR: " + e.getMessage(), e);
+        List<ConWord> ret;
+
+        if (candidates == null) {
+            ret = new ArrayList<>(nodeMap.values());
+        } else {
+            ret = new ArrayList<>();
+
+            for (Integer id : candidates) {
+                ret.add(nodeMap.get(id));
             }
         }
 
-        return retValues.getWordNodes();
+        return ret;
+    }
+
+    /**
+     * @param text text to test
+     * @return true if text has no regex special characters (matching it as a
+     * pattern is the same as matching it as plain text)
+     */
+    private static boolean isLiteral(String text) {
+        return !text.isEmpty() && !text.matches(".*[\\\\^$.|?*+()\\[\\]{}].*");
+    }
+
+    /**
+     * Builds a reverse lookup from all wordforms in the lexicon (generated or
+     * stored) to the words and combined conjugation IDs which produce
+     * them. Honors the ignore case setting. Rebuild after any change to the
+     * lexicon or its rules.
+     *
+     * @return snapshot lookup of all wordforms
+     */
+    public WordFormLookup buildFormLookup() {
+        return formIndex.buildLookup(nodeMap.values(), core.getPropertiesManager().isIgnoreCase());
+    }
+
+    /**
+     * Builds full paradigms (stored and generated forms) of the given words in
+     * a single parallel pass. Rebuild after any change to the lexicon or its
+     * rules.
+     *
+     * @param words words to build paradigms of
+     * @return snapshot of paradigms, in tables per part of speech
+     */
+    public Paradigms getParadigms(ConWord[] words) {
+        return formIndex.buildParadigms(Arrays.asList(words));
+    }
+
+    /**
+     * Builds full paradigms of the given words as above, optionally without
+     * caching newly generated forms (for one-off passes such as exports).
+     *
+     * @param words words to build paradigms of
+     * @param cacheForms whether to cache newly generated forms
+     * @return snapshot of paradigms, in tables per part of speech
+     */
+    public Paradigms getParadigms(ConWord[] words, boolean cacheForms) {
+        return formIndex.buildParadigms(Arrays.asList(words), cacheForms);
     }
 
     /**
@@ -540,33 +764,27 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
      * @param word Word within which to search for matches
      * @return true if match, false otherwise
      */
-    private boolean matchHeadAndDeclensions(String matchText, ConWord word) {
+    private boolean matchHeadAndDeclensions(FilterTerm matchText, ConWord word) {
         boolean ret = false;
         boolean ignoreCase = core.getPropertiesManager().isIgnoreCase();
 
         String head = ignoreCase ? word.getValue().toLowerCase() : word.getValue();
 
-        if (matchText.trim().isEmpty()
-                || head.matches(matchText)
-                || head.contains(matchText)) {
+        if (matchText.text.trim().isEmpty()
+                || matchText.regexMatches(head)
+                || head.contains(matchText.text)) {
             ret = true;
         }
-        TypeNode type = core.getTypes().getNodeById(word.getWordTypeId());
-
-        if (type != null && !ret) {
-            int typeId = type.getId();
-            ConjugationPair[] decPairs = core.getConjugationManager().getAllCombinedIds(typeId);
-
-            for (ConjugationPair curPair : decPairs) {
-                // silently skip erroring entries. Too cumbersome to deal with during a search
+        if (!ret) {
+            for (String declension : formIndex.getForms(word)) {
+                // silently skip erroring entries (null). Too cumbersome to deal with during a search
                 try {
-                    String declension = core.getConjugationManager()
-                            .declineWord(word, curPair.combinedId);
-
-                    if (!declension.trim().isEmpty()
-                            && (declension.matches(matchText)
-                            || declension.contains(matchText))) {
+                    if (declension != null
+                            && !declension.trim().isEmpty()
+                            && (matchText.regexMatches(declension)
+                            || declension.contains(matchText.text))) {
                         ret = true;
+                        break;
                     }
                 } catch (Exception e) {
                     // do nothing (see above comment)
@@ -578,6 +796,210 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
         return ret;
     }
 
+    /**
+     * A filter compiled from the values of a filter ConWord. Built with
+     * compileFilter(), and may be applied any number of times.
+     */
+    public final class FilterPlan {
+        private final FilterTerm[] definitionTerms;
+        private final int typeId;
+        private final FilterTerm localTerm;
+        private final FilterTerm[] valueTerms;
+        private final FilterTerm procTerm;
+        private final Object etyParent;
+
+        private FilterPlan(ConWord _filter) throws Exception {
+            // definition search should always ignore case
+            _filter.setDefinition(_filter.getDefinition().toLowerCase());
+
+            // set filter to lowercase if ignoring case
+            if (core.getPropertiesManager().isIgnoreCase()) {
+                _filter.setDefinition(_filter.getDefinition().toLowerCase());
+                _filter.setLocalWord(_filter.getLocalWord().toLowerCase());
+                _filter.setValue(_filter.getValue().toLowerCase());
+                _filter.setPronunciation(_filter.getPronunciation().toLowerCase());
+            }
+
+            String definition = _filter.getDefinition();
+            String local = _filter.getLocalWord();
+            String value = _filter.getValue();
+            // generated from the filter's value unless overridden, so computed once here
+            String proc = _filter.getPronunciation();
+
+            if (definition.trim().isEmpty()) {
+                definitionTerms = null;
+            } else {
+                String[] split = definition.split(SPLIT_CHAR);
+                definitionTerms = new FilterTerm[split.length];
+
+                for (int i = 0; i < split.length; i++) {
+                    definitionTerms[i] = new FilterTerm(split[i], ".*" + split[i] + ".*");
+                }
+            }
+
+            typeId = _filter.getWordTypeId();
+            localTerm = local.trim().isEmpty() ? null : new FilterTerm(local.trim());
+
+            if (value.trim().isEmpty()) {
+                valueTerms = null;
+            } else {
+                String[] split = value.split(SPLIT_CHAR);
+                valueTerms = new FilterTerm[split.length];
+
+                for (int i = 0; i < split.length; i++) {
+                    valueTerms[i] = new FilterTerm(split[i]);
+                }
+            }
+
+            procTerm = proc.trim().isEmpty() ? null : new FilterTerm(proc);
+            etyParent = _filter.getFilterEtyParent();
+        }
+
+        /**
+         * @return true if this filter matches against conjugated forms of
+         * words, requiring every form of every word tested to be generated
+         */
+        public boolean isMatchingDeclensions() {
+            return valueTerms != null;
+        }
+
+        /**
+         * Tests a word against this filter. Each test is only made (and each
+         * value of the word only computed) if the filter sets it.
+         *
+         * @param curWord word to test
+         * @return true if the word passes all tests
+         * @throws Exception on pronunciation generation or regex errors
+         */
+        private boolean matches(ConWord curWord) throws Exception {
+            // each filter test split up to minimize compares
+            // definition
+            if (definitionTerms != null) {
+                // projected per test rather than cached, so no copy of any definition outlives the run
+                String definition = FormattedTextHelper.getTextBody(curWord.getDefinition()).toLowerCase();
+                boolean cont = true;
+
+                for (FilterTerm def1 : definitionTerms) {
+                    if (def1.regexMatches(definition)) {
+                        cont = false;
+                        break;
+                    }
+                }
+
+                if (cont) {
+                    return false;
+                }
+            }
+
+            // type (exact match only)
+            if (typeId != 0 && curWord.getWordTypeId() != typeId) {
+                return false;
+            }
+
+            boolean ignoreCase = core.getPropertiesManager().isIgnoreCase();
+
+            // local word
+            if (localTerm != null) {
+                String local = ignoreCase ? curWord.getLocalWord().toLowerCase() : curWord.getLocalWord();
+
+                if (!local.contains(localTerm.text)
+                        && !localTerm.regexMatches(local)) {
+                    return false;
+                }
+            }
+
+            // con word
+            if (valueTerms != null) {
+                boolean cont = true;
+
+                for (FilterTerm val1 : valueTerms) {
+                    if (matchHeadAndDeclensions(val1, curWord)) {
+                        cont = false;
+                        break;
+                    }
+                }
+
+                if (cont) {
+                    return false;
+                }
+            }
+
+            // pronunciation
+            if (procTerm != null) {
+                String proc = ignoreCase ? curWord.getPronunciation().toLowerCase() : curWord.getPronunciation();
+
+                if (!proc.contains(procTerm.text)
+                        && !procTerm.regexMatches(proc)) {
+                    return false;
+                }
+            }
+
+            // etymological root
+            if (etyParent != null) {
+                if (etyParent instanceof ConWord) {
+                    ConWord parWord = (ConWord) etyParent;
+                    if (parWord.getId() != -1 && !core.getEtymologyManager()
+                            .childHasParent(curWord.getId(), parWord.getId())) {
+                        return false;
+                    }
+                }
+
+                if (etyParent instanceof EtyExternalParent) {
+                    EtyExternalParent parExt = (EtyExternalParent) etyParent;
+                    if (parExt.getId() != -1 && !core.getEtymologyManager()
+                            .childHasExtParent(curWord.getId(), parExt.getUniqueId())) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * A single piece of filter text, along with its precompiled regex form. A
+     * pattern which fails to compile only raises its error when a regex match
+     * is actually attempted, as matching the raw string would.
+     */
+    private static final class FilterTerm {
+        private final String text;
+        private final Pattern pattern;
+        private final PatternSyntaxException patternError;
+
+        FilterTerm(String _text) {
+            this(_text, _text);
+        }
+
+        FilterTerm(String _text, String regex) {
+            Pattern compiled = null;
+            PatternSyntaxException error = null;
+
+            try {
+                compiled = Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                error = e;
+            }
+
+            text = _text;
+            pattern = compiled;
+            patternError = error;
+        }
+
+        /**
+         * Equivalent to value.matches(regex)
+         * @param value value to test
+         * @return true if the whole value matches
+         */
+        boolean regexMatches(String value) {
+            if (pattern == null) {
+                throw patternError;
+            }
+
+            return pattern.matcher(value).matches();
+        }
+    }
+
     @Override
     public ConWord getNodeById(Integer _id) {
         return (ConWord) super.getNodeById(_id);
@@ -617,6 +1039,52 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
         return retList.toArray(new ConWord[0]);
     }
 
+    /**
+     * Gets all words partitioned by part of speech, sorting and partitioning
+     * the lexicon in a single pass. Words of each part of speech are in the
+     * order filteredList() returns when filtering on that type alone.
+     *
+     * @return sorted words of each part of speech, keyed by type ID
+     */
+    public Map<Integer, ConWord[]> getWordNodesByType() {
+        // same stable ID ordered snapshot as filteredList so that equal words sort alike
+        List<ConWord> sorted = new ArrayList<>(nodeMap.values());
+        sorted.sort((a, b) -> a.getId().compareTo(b.getId()));
+        this.safeSort(sorted);
+
+        Map<Integer, List<ConWord>> partitions = new HashMap<>();
+
+        for (ConWord word : sorted) {
+            partitions.computeIfAbsent(word.getWordTypeId(), (k) -> new ArrayList<>()).add(word);
+        }
+
+        Map<Integer, ConWord[]> ret = new HashMap<>();
+
+        partitions.forEach((typeId, words) -> {
+            ret.put(typeId, words.toArray(new ConWord[0]));
+        });
+
+        return ret;
+    }
+
+    /**
+     * Returns pronunciations of the given words as ConWord.getPronunciation()
+     * would, respecting pronunciation overrides. Computed in parallel, with
+     * errors recorded per word rather than aborting.
+     *
+     * @param words words to find pronunciations of
+     * @return pronunciations in order of words given, also fetchable by ID
+     */
+    public PronunciationBatch getPronunciationBatch(ConWord[] words) {
+        Integer[] ids = new Integer[words.length];
+
+        for (int i = 0; i < words.length; i++) {
+            ids[i] = words[i].getId();
+        }
+
+        return new PronunciationBatch(ids, words.length, (i) -> words[i].getPronunciation());
+    }
+
     /**
      * gets and returns iterator of all words based on alphabetical order of
      * localwords on the entries. Respects default alpha order.
@@ -665,6 +1133,21 @@ public class ConWordCollection extends DictionaryCollection<ConWord> {
         return orderByLocal;
     }
 
+    /**
+     * Whether long definitions are compacted to byte storage as words are
+     * loaded (see ConWord.compactDefinition()). Trades decoding time on each
+     * definition read for a smaller memory footprint on large lexicons.
+     *
+     * @return true if definitions are compacted on load
+     */
+    public boolean isCompactDefinitions() {
+        return compactDefinitions;
+    }
+
+    public void setCompactDefinitions(boolean _compactDefinitions) {
+        compactDefinitions = _compactDefinitions;
+    }
+
     /**
      * Inserts new word into dictionary
      *
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2021, Draque Thompson, draquemail@gmail.com
+ * All rights reserved.
+ *
+ * Licensed under: MIT Licence
+ * See LICENSE.TXT included with this code to read the full license agreement.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot.ManagersCollections;
+
+import PolyGlot.FormattedTextHelper;
+import PolyGlot.Nodes.ConWord;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index of character bigrams over the con value, local word and
+ * definition of each word in a ConWordCollection. Text is folded to lower case
+ * a character at a time before indexing, so candidates returned are a superset
+ * of true matches in both case sensitive and insensitive modes: callers must
+ * still test each candidate. Lower casing a whole string may differ from doing
+ * so per character (Greek final sigma, for instance), so text is indexed and
+ * queried in both forms. Definitions are indexed on both their raw and
+ * plain-text forms so that candidates cover either style of comparison.
+ *
+ * @author draque
+ */
+public class ConWordSearchIndex {
+    public enum Field {
+        VALUE, LOCAL, DEFINITION
+    }
+
+    public static final int GRAM_LENGTH = 2;
+
+    private final Map<Field, Map<Integer, Set<Integer>>> postings = new HashMap<>();
+    private final Map<Integer, IndexedWord> indexed = new HashMap<>();
+
+    public ConWordSearchIndex() {
+        for (Field field : Field.values()) {
+            postings.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds or refreshes the entries of a single word
+     * @param word word to index
+     */
+    public void update(ConWord word) {
+        remove(word.getId());
+
+        IndexedWord entry = new IndexedWord();
+        entry.grams.put(Field.VALUE, getGrams(word.getValue()));
+        entry.grams.put(Field.LOCAL, getGrams(word.getLocalWord()));
+
+        String definition = word.getDefinition();
+        Set<Integer> defGrams = getGrams(definition);
+        defGrams.addAll(getGrams(FormattedTextHelper.getTextBody(definition)));
+        entry.grams.put(Field.DEFINITION, defGrams);
+
+        for (Field field : Field.values()) {
+            Map<Integer, Set<Integer>> fieldPostings = postings.get(field);
+
+            for (Integer gram : entry.grams.get(field)) {
+                Set<Integer> ids = fieldPostings.get(gram);
+
+                if (ids == null) {
+                    ids = new HashSet<>();
+                    fieldPostings.put(gram, ids);
+                }
+
+                ids.add(word.getId());
+            }
+        }
+
+        indexed.put(word.getId(), entry);
+    }
+
+    /**
+     * Removes all entries of word with given ID
+     * @param wordId ID of word to remove
+     */
+    public void remove(Integer wordId) {
+        IndexedWord entry = indexed.remove(wordId);
+
+        if (entry != null) {
+            for (Field field : Field.values()) {
+                Map<Integer, Set<Integer>> fieldPostings = postings.get(field);
+
+                for (Integer gram : entry.grams.get(field)) {
+                    Set<Integer> ids = fieldPostings.get(gram);
+
+                    if (ids != null) {
+                        ids.remove(wordId);
+
+                        if (ids.isEmpty()) {
+                            fieldPostings.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets IDs of all words with field that may contain the given text
+     * @param field field to search
+     * @param text text to find
+     * @return set of candidate IDs, or null if text is too short to narrow
+     * the search (every word is a candidate)
+     */
+    public Set<Integer> getCandidates(Field field, String text) {
+        if (text.length() < GRAM_LENGTH) {
+            return null;
+        }
+
+        // matches against whole string lower cased text may only be found through its own grams
+        Set<Integer> ret = getCandidates(field, getFoldedGrams(text));
+        String lower = text.toLowerCase();
+
+        if (!lower.equals(text)) {
+            ret.addAll(getCandidates(field, getFoldedGrams(lower)));
+        }
+
+        return ret;
+    }
+
+    private Set<Integer> getCandidates(Field field, Set<Integer> queryGrams) {
+        Map<Integer, Set<Integer>> fieldPostings = postings.get(field);
+        Set<Integer> smallest = null;
+
+        // start from the rarest gram so the intersection stays small
+        for (Integer gram : queryGrams) {
+            Set<Integer> ids = fieldPostings.get(gram);
+
+            if (ids == null) {
+                return new HashSet<>();
+            } else if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+
+        if (smallest == null) {
+            return new HashSet<>();
+        }
+
+        Set<Integer> ret = new HashSet<>(smallest);
+
+        for (Integer gram : queryGrams) {
+            Set<Integer> ids = fieldPostings.get(gram);
+
+            if (ids != smallest) {
+                ret.retainAll(ids);
+            }
+        }
+
+        return ret;
+    }
+
+    public int size() {
+        return indexed.size();
+    }
+
+    private static Set<Integer> getGrams(String text) {
+        Set<Integer> ret = getFoldedGrams(text);
+        ret.addAll(getFoldedGrams(text.toLowerCase()));
+
+        return ret;
+    }
+
+    private static Set<Integer> getFoldedGrams(String text) {
+        Set<Integer> ret = new HashSet<>();
+
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            ret.add((Character.toLowerCase(text.charAt(i)) << 16) | Character.toLowerCase(text.charAt(i + 1)));
+        }
+
+        return ret;
+    }
+
+    private static class IndexedWord {
+        final Map<Field, Set<Integer>> grams = new HashMap<>();
+    }
+}
@@ -22,11 +22,13 @@ package PolyGlot.ManagersCollections;
 import PolyGlot.Nodes.ConWord;
 import PolyGlot.Nodes.ConjugationDimension;
 import PolyGlot.DictCore;
+import PolyGlot.Exceptions.RegexTimeoutException;
 import PolyGlot.Nodes.ConjugationGenRule;
 import PolyGlot.Nodes.ConjugationGenTransform;
 import PolyGlot.Nodes.ConjugationNode;
 import PolyGlot.Nodes.ConjugationPair;
 import PolyGlot.PGTUtil;
+import PolyGlot.RegexTools;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -38,6 +40,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -48,7 +51,9 @@ import org.w3c.dom.Element;
 public class ConjugationManager {
 
     private final DictCore core;
-    private final List<String> decGenDebug = new ArrayList<>();
+    // kept per thread so that words may be declined concurrently (parallel filtering, etc.)
+    private final ThreadLocal<List<String>> decGenDebug = ThreadLocal.withInitial(ArrayList::new);
+    private volatile boolean tracing = false;
     private Integer topId = 0;
     private boolean bufferDecTemp = false;
     private Integer bufferRelId = -1;
@@ -58,6 +63,10 @@ public class ConjugationManager {
     
     // Integer is ID of related word, list is list of declension nodes
     private final Map<Integer, List<ConjugationNode>> dList = new HashMap<>();
+    
+    // Integer is ID of related word, map is its declension nodes by combined dim ID.
+    // Built lazily from dList and dropped whenever the word's declensions change
+    private final Map<Integer, Map<String, ConjugationNode>> dListIndex = new ConcurrentHashMap<>();
 
     // Integer is ID of related PoS, list is list of declensions for this PoS
     private final Map<Integer, List<ConjugationNode>> dTemplates = new HashMap<>();
@@ -65,6 +74,14 @@ public class ConjugationManager {
     // If specific combined declensions require additional settings in the future,
     // change the boolean here to an object which will store them
     private final Map<String, Boolean> combSettings = new HashMap<>();
+    
+    // revisions of generation rules & templates (global and per type) used to invalidate cached wordforms
+    private int rulesRevision = 0;
+    private final Map<Integer, Integer> typeRulesRevisions = new HashMap<>();
+    // sorted rules of each type, rebuilt whenever the type's rules revision changes
+    private final Map<Integer, SortedRules> sortedRules = new ConcurrentHashMap<>();
+    // combined IDs of each type, rebuilt whenever the type's rules revision changes
+    private final Map<Integer, CombinedIds> combinedIds = new ConcurrentHashMap<>();
 
     public ConjugationManager(DictCore _core) {
         core = _core;
@@ -110,7 +127,7 @@ public class ConjugationManager {
      */
     public ConjugationGenRule[] getAllDepGenerationRules(int typeId) {
         List<ConjugationGenRule> ret = new ArrayList<>();
-        ConjugationPair[] typeRules = getAllCombinedIds(typeId);
+        ConjugationPair[] typeRules = getCombinedIds(typeId).pairs;
         Map<String, Integer> ruleMap = new HashMap<>();
 
         // creates searchable map of extant combination IDs
@@ -132,6 +149,7 @@ public class ConjugationManager {
                 if (curRule.getIndex() == -1) {
                     highestIndex++;
                     curRule.setIndex(highestIndex);
+                    rulesRevision++;
                 }
 
                 if (curRule.getTypeId() == typeId
@@ -191,6 +209,7 @@ public class ConjugationManager {
         }
 
         rules.add(newRule);
+        notifyRulesChanged(typeId);
     }
 
     /**
@@ -200,6 +219,7 @@ public class ConjugationManager {
      */
     public void wipeConjugationGenRules(int typeId) {
         generationRules.remove(typeId);
+        notifyRulesChanged(typeId);
     }
 
     /**
@@ -216,6 +236,8 @@ public class ConjugationManager {
                 newIndex++;
             }
         });
+        
+        rulesRevision++;
     }
     
     /**
@@ -228,6 +250,7 @@ public class ConjugationManager {
 
         if (generationRules.containsKey(typeId)) {
             generationRules.get(typeId).remove(delRule);
+            notifyRulesChanged(typeId);
         }
     }
 
@@ -248,6 +271,8 @@ public class ConjugationManager {
                     rules.remove(rule);
                 }
             }
+            
+            notifyRulesChanged(typeId);
         }
     }
     
@@ -326,32 +351,43 @@ public class ConjugationManager {
      * @return list of rules
      */
     public ConjugationGenRule[] getConjugationRules(ConWord word) {
-        List<ConjugationGenRule> ret = new ArrayList<>();
-        int typeId = word.getWordTypeId();
+        return getSortedRules(word.getWordTypeId()).clone();
+    }
+    
+    /**
+     * Gets rules of a type in order, sorting them only if they have changed
+     * since last sorted. The array returned is shared: do not modify it.
+     *
+     * @param typeId type to get rules of
+     * @return sorted rules of type
+     */
+    private ConjugationGenRule[] getSortedRules(int typeId) {
+        int revision = getRulesRevision(typeId);
+        SortedRules ret = sortedRules.get(typeId);
         
-        if (generationRules.containsKey(typeId)) {
-            List<ConjugationGenRule> decRules = generationRules.get(word.getWordTypeId());
+        if (ret == null || ret.revision != revision) {
+            List<ConjugationGenRule> rules = new ArrayList<>(generationRules.getOrDefault(typeId, new ArrayList<>()));
+            
+            Collections.sort(rules);
 
-            for (ConjugationGenRule curRule : decRules) {
-                ret.add(curRule);
+            // ensure that all rules cave contiguous IDs
+            int i = 1;
+            for (ConjugationGenRule curRule : rules) {
+                curRule.setIndex(i);
+                i++;
             }
+            
+            ret = new SortedRules(revision, rules.toArray(new ConjugationGenRule[0]));
+            sortedRules.put(typeId, ret);
         }
-
-        Collections.sort(ret);
-
-        // ensure that all rules cave contiguous IDs before returning
-        int i = 1;
-        for (ConjugationGenRule curRule : ret) {
-            curRule.setIndex(i);
-            i++;
-        }
-
-        return ret.toArray(new ConjugationGenRule[0]);
+        
+        return ret.rules;
     }
 
     /**
      * Generates the new form of a declined/conjugated word based on rules for
-     * its type
+     * its type. If tracing is enabled, a breakdown of the rules applied is
+     * kept for the calling thread (see getDecGenDebug()).
      *
      * @param word to transform
      * @param combinedId combined ID of word form to create
@@ -359,39 +395,74 @@ public class ConjugationManager {
      * @throws java.lang.Exception on bad regex
      */
     public String declineWord(ConWord word, String combinedId) throws Exception {
-        ConjugationGenRule[] rules = getConjugationRules(word);
-        decGenDebug.clear();
-        decGenDebug.add("APPLIED RULES BREAKDOWN:\n");
+        List<String> trace = null;
+        
+        if (tracing) {
+            trace = decGenDebug.get();
+            trace.clear();
+        }
+        
+        return declineWord(word, combinedId, trace);
+    }
+    
+    /**
+     * Generates the new form of a declined/conjugated word based on rules for
+     * its type. Safe to call from several threads at once (e.g. parallel
+     * export), provided rules, templates and words are not modified meanwhile.
+     *
+     * @param word to transform
+     * @param combinedId combined ID of word form to create
+     * @param trace if not null, receives a human readable breakdown of the
+     * rules applied. When null, no breakdown is built at all.
+     * @return new word value if exists, empty string otherwise
+     * @throws java.lang.Exception on bad regex
+     */
+    public String declineWord(ConWord word, String combinedId, List<String> trace) throws Exception {
+        ConjugationGenRule[] rules = getSortedRules(word.getWordTypeId());
         String ret = word.getValue();
+        
+        if (trace != null) {
+            trace.add("APPLIED RULES BREAKDOWN:\n");
+        }
 
         for (ConjugationGenRule curRule : rules) {
-            boolean ruleAppliesCombId = curRule.getCombinationId().equals(combinedId);
-            boolean ruleAppliesToWord = curRule.doesRuleApplyToWord(word);
-            
-            String debugString = "--------------------------------------\n";
-            
             // skip all entries not applicable to this particular combined word ID
-            if (!ruleAppliesCombId) {
-                continue;
-            } else if (!ruleAppliesToWord) {
-                debugString += curRule.getDebugString();
-                decGenDebug.add(debugString);
+            if (!curRule.getCombinationId().equals(combinedId)) {
+                // malformed filter regexes fail every form of applicable words, as they always have
+                if (curRule.doesRuleApplyToWordClasses(word, null)) {
+                    curRule.getRegexPattern();
+                }
+                
                 continue;
             }
             
-            debugString += curRule.getDebugString();
+            StringBuilder debugString = trace == null ? null : new StringBuilder("--------------------------------------\n");
+            
+            if (!curRule.doesRuleApplyToWord(word, debugString)) {
+                if (trace != null) {
+                    trace.add(debugString.toString());
+                }
+                
+                continue;
+            }
 
             ConjugationGenTransform[] transforms = curRule.getTransforms();
+            String ruleLabel = curRule.getErrorLabel();
 
             for (ConjugationGenTransform curTrans : transforms) {
                 try {
                     String orig = ret;
-                    ret = ret.replaceAll(curTrans.regex, curTrans.replaceText);
-                    debugString += "    -------------------------\n"
-                            + "    Transformation:\n"
-                            + "        Regex: \"" + curTrans.regex + "\"\n"
-                            + "        Text: \"" + curTrans.replaceText + "\"\n" 
-                            + "        Effect: " + orig + " -> " + ret + "\n";
+                    ret = RegexTools.guardedMatcher(curTrans.getPattern(), ret, ruleLabel).replaceAll(curTrans.replaceText);
+                    
+                    if (trace != null) {
+                        debugString.append("    -------------------------\n")
+                                .append("    Transformation:\n")
+                                .append("        Regex: \"").append(curTrans.regex).append("\"\n")
+                                .append("        Text: \"").append(curTrans.replaceText).append("\"\n")
+                                .append("        Effect: ").append(orig).append(" -> ").append(ret).append("\n");
+                    }
+                } catch (RegexTimeoutException e) {
+                    throw new Exception("Unable to create declension/conjugation: " + e.getLocalizedMessage(), e);
                 } catch (Exception e) {
                     throw new Exception("Unable to create declension/conjugation "
                             + "due to malformed regex (modify in Parts of Speech->Autogeneration): "
@@ -399,7 +470,9 @@ public class ConjugationManager {
                 }
             }
             
-            decGenDebug.add(debugString);
+            if (trace != null) {
+                trace.add(debugString.toString());
+            }
         }
 
         // if rules are empty, no transformation took place: return blank string
@@ -409,11 +482,23 @@ public class ConjugationManager {
     }
 
     public void addConjugationToWord(Integer wordId, Integer declensionId, ConjugationNode declension) {
-        ConjugationManager.this.addConjugation(wordId, declensionId, declension, dList);
+        ConjugationManager.this.addConjugation(wordId, declensionId, declension, dList).setWordId(wordId);
+        dListIndex.remove(wordId);
+    }
+    
+    /**
+     * Called by declensions stored against a word when their combined ID
+     * changes in place. Drops the word's index of declensions by combined ID,
+     * so that it is rebuilt on next lookup.
+     * @param wordId ID of word
+     */
+    public void wordConjugationIdChanged(Integer wordId) {
+        dListIndex.remove(wordId);
     }
 
     public void deleteConjugationFromWord(Integer wordId, Integer declensionId) {
         deleteConjugation(wordId, declensionId, dList);
+        dListIndex.remove(wordId);
     }
 
     /**
@@ -426,7 +511,7 @@ public class ConjugationManager {
         
         // rename rules first for easier organization
         Map<String, ConjugationPair> mappedConjugations = new HashMap<>();
-        for (ConjugationPair conjugation : getAllCombinedIds(typeId)) {
+        for (ConjugationPair conjugation : getCombinedIds(typeId).pairs) {
             mappedConjugations.put(conjugation.combinedId, conjugation);
         }
         if (generationRules.containsKey(typeId)) {
@@ -453,7 +538,11 @@ public class ConjugationManager {
 
                 curNode.setCombinedDimId("D" + curNode.getCombinedDimId());
             }
+            
+            dListIndex.remove(curEntry.getKey());
         }
+        
+        notifyRulesChanged(typeId);
     }
 
     /**
@@ -491,6 +580,7 @@ public class ConjugationManager {
      */
     public void clearAllConjugationsWord(Integer wordId) {
         clearAllConjugations(wordId, dList);
+        dListIndex.remove(wordId);
     }
 
     /**
@@ -501,12 +591,32 @@ public class ConjugationManager {
      * @return list of labels and IDs
      */
     public ConjugationPair[] getAllCombinedIds(Integer typeId) {
-        ConjugationNode[] dimensionalConjugationNodes = getDimensionalConjugationListTemplate(typeId);
-        List<ConjugationNode> singletonConjugationNodes = ConjugationManager.this.getSingletonConjugationList(typeId, dTemplates);
-        List<ConjugationPair> ret = getAllCombinedDimensionalIds(0, ",", "", dimensionalConjugationNodes);
-        ret.addAll(Arrays.asList(getAllSingletonIds(singletonConjugationNodes)));
+        return getCombinedIds(typeId).pairs.clone();
+    }
 
-        return ret.toArray(new ConjugationPair[0]);
+    /**
+     * Gets combined IDs of a type, building them only if the type's templates
+     * have changed since last built
+     *
+     * @param typeId ID of type to fetch combined IDs for
+     * @return combined IDs of type
+     */
+    private CombinedIds getCombinedIds(Integer typeId) {
+        int revision = getRulesRevision(typeId);
+        CombinedIds ret = combinedIds.get(typeId);
+
+        if (ret == null || ret.revision != revision) {
+            ConjugationNode[] dimensionalConjugationNodes = getDimensionalConjugationListTemplate(typeId);
+            List<ConjugationNode> singletonConjugationNodes = ConjugationManager.this.getSingletonConjugationList(typeId, dTemplates);
+            List<ConjugationPair> pairs = getAllCombinedDimensionalIds(0, ",", "", dimensionalConjugationNodes);
+            int dimensionalCount = pairs.size();
+            pairs.addAll(Arrays.asList(getAllSingletonIds(singletonConjugationNodes)));
+
+            ret = new CombinedIds(revision, pairs.toArray(new ConjugationPair[0]), dimensionalCount);
+            combinedIds.put(typeId, ret);
+        }
+
+        return ret;
     }
 
     /**
@@ -517,8 +627,8 @@ public class ConjugationManager {
      * @return list of labels and IDs
      */
     public ConjugationPair[] getDimensionalCombinedIds(Integer typeId) {
-        ConjugationNode[] dimensionalConjugationNodes = getDimensionalConjugationListTemplate(typeId);
-        return getAllCombinedDimensionalIds(0, ",", "", dimensionalConjugationNodes).toArray(new ConjugationPair[0]);
+        CombinedIds ids = getCombinedIds(typeId);
+        return Arrays.copyOfRange(ids.pairs, 0, ids.dimensionalCount);
     }
 
     /**
@@ -529,8 +639,8 @@ public class ConjugationManager {
      * @return list of labels and IDs
      */
     public ConjugationPair[] getSingletonCombinedIds(Integer typeId) {
-        List<ConjugationNode> singletonConjugationNodes = ConjugationManager.this.getSingletonConjugationList(typeId, dTemplates);
-        return getAllSingletonIds(singletonConjugationNodes);
+        CombinedIds ids = getCombinedIds(typeId);
+        return Arrays.copyOfRange(ids.pairs, ids.dimensionalCount, ids.pairs.length);
     }
 
     public ConjugationPair[] getAllSingletonIds(List<ConjugationNode> declensionList) {
@@ -672,19 +782,23 @@ public class ConjugationManager {
     }
 
     public ConjugationNode addConjugationToTemplate(Integer typeId, Integer declensionId, ConjugationNode declension) {
+        notifyRulesChanged(typeId);
         return ConjugationManager.this.addConjugation(typeId, declensionId, declension, dTemplates);
     }
 
     public ConjugationNode addConjugationToTemplate(Integer typeId, String declension) {
+        notifyRulesChanged(typeId);
         return addConjugation(typeId, declension, dTemplates);
     }
 
     public void deleteConjugationFromTemplate(Integer typeId, Integer declensionId) {
         deleteConjugation(typeId, declensionId, dTemplates);
+        notifyRulesChanged(typeId);
     }
 
     public void updateConjugationTemplate(Integer typeId, Integer declensionId, ConjugationNode declension) {
         updateConjugation(typeId, declensionId, declension, dTemplates);
+        notifyRulesChanged(typeId);
     }
 
     public ConjugationNode getConjugationTemplate(Integer typeId, Integer templateId) {
@@ -834,16 +948,36 @@ public class ConjugationManager {
         ConjugationNode ret = null;
 
         if (dList.containsKey(wordId)) {
-            for (ConjugationNode test : dList.get(wordId)) {
-                if (dimId.equals(test.getCombinedDimId())) {
-                    ret = test;
-                    break;
-                }
-            }
+            ret = getWordConjugationIndex(wordId).get(dimId);
         }
 
         return ret;
     }
+    
+    /**
+     * Gets declensions of a word by their combined dim IDs, indexing them if
+     * they have changed since last indexed. Where IDs are duplicated, the
+     * first declension stored wins. The map returned is shared: do not modify
+     * it.
+     *
+     * @param wordId word to get declensions of
+     * @return declensions of word by combined dim ID
+     */
+    private Map<String, ConjugationNode> getWordConjugationIndex(Integer wordId) {
+        Map<String, ConjugationNode> ret = dListIndex.get(wordId);
+        
+        if (ret == null) {
+            ret = new HashMap<>();
+            
+            for (ConjugationNode node : getFullConjugationList(wordId, dList)) {
+                ret.putIfAbsent(node.getCombinedDimId(), node);
+            }
+            
+            dListIndex.put(wordId, ret);
+        }
+        
+        return ret;
+    }
 
     public String getCombNameFromCombId(int typeId, String combId) {
         String ret = "";
@@ -1055,6 +1189,8 @@ public class ConjugationManager {
         removeVals.forEach((remNode) -> {
             wordList.remove(remNode);
         });
+        
+        dListIndex.remove(wordId);
     }
 
     /**
@@ -1206,6 +1342,8 @@ public class ConjugationManager {
                 }
             }
         }
+        
+        notifyRulesChanged(typeId);
     }
     
     /**
@@ -1251,6 +1389,8 @@ public class ConjugationManager {
                 rule.addClassToFilterList(-1, -1);
             });
         });
+        
+        rulesRevision++;
     }
 
     /**
@@ -1268,7 +1408,7 @@ public class ConjugationManager {
         }
 
         // then remove all values which match existing combined type ids
-        ConjugationPair[] allCombIds = getAllCombinedIds(word.getWordTypeId());
+        ConjugationPair[] allCombIds = getCombinedIds(word.getWordTypeId()).pairs;
         for (ConjugationPair curPair : allCombIds) {
             ret.remove(curPair.combinedId);
         }
@@ -1287,11 +1427,25 @@ public class ConjugationManager {
     }
     
     /**
-     * Fetches debug values for the most recently created declension
-     * @return 
+     * Gets breakdown of the last declension generated on the calling thread
+     * while tracing was enabled
+     * @return breakdown of rules applied
      */
     public String[] getDecGenDebug() {
-        return decGenDebug.toArray(new String[0]);
+        return decGenDebug.get().toArray(new String[0]);
+    }
+    
+    /**
+     * Sets whether declineWord(word, combinedId) records a breakdown of the
+     * rules it applies. Off by default, as building it is costly.
+     * @param _tracing true to record breakdowns
+     */
+    public void setDeclensionTracing(boolean _tracing) {
+        tracing = _tracing;
+    }
+    
+    public boolean isDeclensionTracing() {
+        return tracing;
     }
     
     public boolean isEmpty() {
@@ -1366,6 +1520,7 @@ public class ConjugationManager {
             
             // finally, take the rule which was previously above the block and give it the last index
             beforeFirst.setIndex(lastIndex);
+            notifyRulesChanged(typeId);
         }
     }
     
@@ -1411,6 +1566,59 @@ public class ConjugationManager {
             
             // finally, take the rule which was previously belo the block and give it the first index
             afterLast.setIndex(firstIndex);
+            notifyRulesChanged(typeId);
+        }
+    }
+    
+    /**
+     * Gets current revision of the generation rules and conjugation templates
+     * of a part of speech. This changes whenever rules or templates of the
+     * type are added, removed, reordered or updated, so values generated from
+     * them may be cached against it.
+     * @param typeId part of speech
+     * @return revision of type's rules
+     */
+    public int getRulesRevision(int typeId) {
+        // both counters only ever increase, so their sum does as well
+        return rulesRevision + typeRulesRevisions.getOrDefault(typeId, 0);
+    }
+    
+    /**
+     * Marks rules of a part of speech as changed. Called by all mutators here;
+     * call directly after modifying a ConjugationGenRule or a template
+     * ConjugationNode in place.
+     * @param typeId part of speech whose rules changed
+     */
+    public void notifyRulesChanged(int typeId) {
+        typeRulesRevisions.merge(typeId, 1, Integer::sum);
+    }
+    
+    /**
+     * Rules of a type in order, as of a given rules revision
+     */
+    private static final class SortedRules {
+        final int revision;
+        final ConjugationGenRule[] rules;
+        
+        SortedRules(int _revision, ConjugationGenRule[] _rules) {
+            revision = _revision;
+            rules = _rules;
+        }
+    }
+    
+    /**
+     * Combined IDs of a type as of a given rules revision. Dimensional
+     * combinations come first, followed by singletons.
+     */
+    private static final class CombinedIds {
+        final int revision;
+        final ConjugationPair[] pairs;
+        final int dimensionalCount;
+        
+        CombinedIds(int _revision, ConjugationPair[] _pairs, int _dimensionalCount) {
+            revision = _revision;
+            pairs = _pairs;
+            dimensionalCount = _dimensionalCount;
         }
     }
     
@@ -41,6 +41,9 @@ public abstract class DictionaryCollection<N extends DictNode> {
     protected PAlphaMap<String, Integer> alphaOrder = new PAlphaMap<>();
     protected final Map<Integer, N> nodeMap = new HashMap<>();
     protected N bufferNode;
+    
+    // live mapping of node values to nodes, maintained as nodes are added, changed and removed
+    private final Map<String, List<N>> valueMapping = new HashMap<>();
 
     private int highestNodeId = 1;
 
@@ -91,8 +94,9 @@ public abstract class DictionaryCollection<N extends DictNode> {
         myNode.setId(_id);
         myNode.setParent(this);
 
-        nodeMap.remove(_id);
+        nodeRemoved(nodeMap.remove(_id));
         nodeMap.put(myNode.getId(), _modNode);
+        nodeAdded(_modNode);
     }
     
     /**
@@ -131,7 +135,7 @@ public abstract class DictionaryCollection<N extends DictNode> {
                     + " not found.");
         }
 
-        nodeMap.remove(_id);
+        nodeRemoved(nodeMap.remove(_id));
     }
 
     public void setAlphaOrder(PAlphaMap<String, Integer> _alphaOrder) {
@@ -187,10 +191,83 @@ public abstract class DictionaryCollection<N extends DictNode> {
         myBuffer.setParent(this);
 
         nodeMap.put(_id, _buffer);
+        nodeAdded(_buffer);
 
         return _id;
     }
     
+    /**
+     * Called when a node enters the collection. Subclasses tracking further
+     * values must call super.
+     * @param node node added
+     */
+    protected void nodeAdded(N node) {
+        valueMapping.computeIfAbsent(node.getValue(), (k) -> new ArrayList<>()).add(node);
+    }
+    
+    /**
+     * Called when a node leaves the collection. Subclasses tracking further
+     * values must call super.
+     * @param node node removed
+     */
+    protected void nodeRemoved(N node) {
+        List<N> nodeList = valueMapping.get(node.getValue());
+        
+        if (nodeList != null) {
+            nodeList.remove(node);
+            
+            if (nodeList.isEmpty()) {
+                valueMapping.remove(node.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Called by nodes when their value changes, keeping value mapping current.
+     * Ignored for nodes not (or no longer) in this collection.
+     * @param node node whose value changed
+     * @param oldValue value prior to change
+     */
+    public void nodeValueChanged(DictNode node, String oldValue) {
+        N member = getMember(node);
+        
+        if (member != null && !Objects.equals(oldValue, member.getValue())) {
+            List<N> nodeList = valueMapping.get(oldValue);
+            
+            if (nodeList != null) {
+                nodeList.remove(member);
+                
+                if (nodeList.isEmpty()) {
+                    valueMapping.remove(oldValue);
+                }
+            }
+            
+            valueMapping.computeIfAbsent(member.getValue(), (k) -> new ArrayList<>()).add(member);
+        }
+    }
+    
+    /**
+     * Returns node as member of this collection if it is currently held in it
+     * @param node node to test
+     * @return node if in collection, null otherwise
+     */
+    protected N getMember(DictNode node) {
+        N ret = nodeMap.get(node.getId());
+        
+        return ret == node ? ret : null;
+    }
+    
+    /**
+     * Counts nodes with a given value
+     * @param value value to count
+     * @return number of nodes in collection with value
+     */
+    public int getValueCount(String value) {
+        List<N> nodeList = valueMapping.get(value);
+        
+        return nodeList == null ? 0 : nodeList.size();
+    }
+    
     /**
      * Returns randomly selected nodes from the collection
      * NOTE: returns as list because Java does not support generic arrays
@@ -265,28 +342,18 @@ public abstract class DictionaryCollection<N extends DictNode> {
     }
     
     /**
-     * Generates mapping of node's string values to node objects. Lists are returned
+     * Returns mapping of node's string values to node objects. Lists are returned
      * rather than raw objects, as many collections allow for nodes with duplicate
-     * value fields.
+     * value fields. The mapping is maintained live; the returned map is a copy.
      * 
      * @return Map of node value -> list of nodes with this value
      */
     public Map<String, List<N>> getValueMapping() {
         Map<String, List<N>> ret = new HashMap<>();
         
-        for (N node : nodeMap.values()) {
-            String nodeVal = node.getValue();
-            List<N> nodeList;
-            
-            if (ret.containsKey(nodeVal)) {
-                nodeList = ret.get(nodeVal);
-            } else {
-                nodeList = new ArrayList<>();
-                ret.put(nodeVal, nodeList);
-            }
-            
-            nodeList.add(node);
-        }
+        valueMapping.entrySet().forEach((entry) -> {
+            ret.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        });
         
         return ret;
     }
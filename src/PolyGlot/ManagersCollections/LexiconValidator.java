@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2021, Draque Thompson, draquemail@gmail.com
+ * All rights reserved.
+ *
+ * Licensed under: MIT Licence
+ * See LICENSE.TXT included with this code to read the full license agreement.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot.ManagersCollections;
+
+import PolyGlot.DictCore;
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.LexiconProblemNode;
+import PolyGlot.Nodes.TypeNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.IntStream;
+
+/**
+ * Checks legality of the entire lexicon in a single pass. Part of speech
+ * patterns are compiled once for the whole batch rather than per word as with
+ * ConWord.isWordLegal(), and uniqueness is tested against the collection's live
+ * value counts.
+ *
+ * @author draque
+ */
+public class LexiconValidator {
+    private final DictCore core;
+
+    public LexiconValidator(DictCore _core) {
+        core = _core;
+    }
+
+    /**
+     * Validates all words of the lexicon. Words set to override rules are not
+     * reported (as with ConWordCollection.illegalFilter()).
+     *
+     * @param parallel true to check words in parallel
+     * @return report of all illegal words and their problems
+     */
+    public Report validate(boolean parallel) {
+        ConWordCollection wordCollection = core.getWordCollection();
+        ConWord[] words = wordCollection.getAllValues().toArray(new ConWord[0]);
+        Map<Integer, Pattern> posPatterns = compilePosPatterns();
+        ConWord[] results = new ConWord[words.length];
+
+        IntStream range = IntStream.range(0, words.length);
+
+        if (parallel) {
+            range = range.parallel();
+        }
+
+        range.forEach((i) -> {
+            if (!words[i].isRulesOverride()) {
+                ConWord checkValue = wordCollection.testWordLegality(words[i], null, null, posPatterns);
+
+                if (!checkValue.isLegalityClean()) {
+                    results[i] = checkValue;
+                }
+            }
+        });
+
+        Map<ConWord, ConWord> problems = new HashMap<>();
+        List<ConWord> illegal = new ArrayList<>();
+
+        for (int i = 0; i < words.length; i++) {
+            if (results[i] != null) {
+                problems.put(words[i], results[i]);
+                illegal.add(words[i]);
+            }
+        }
+
+        wordCollection.safeSort(illegal);
+
+        List<LexiconProblemNode> problemNodes = new ArrayList<>();
+
+        for (ConWord word : illegal) {
+            problemNodes.add(new LexiconProblemNode(word, describe(problems.get(word))));
+        }
+
+        return new Report(words.length, illegal, problemNodes);
+    }
+
+    /**
+     * Compiles enforced patterns of all parts of speech. Types with blank or
+     * illegal patterns are omitted (not enforced).
+     *
+     * @return map of type IDs to patterns
+     */
+    public Map<Integer, Pattern> compilePosPatterns() {
+        Map<Integer, Pattern> ret = new HashMap<>();
+
+        for (TypeNode type : core.getTypes().getNodes()) {
+            String posRegex = type.getPattern();
+
+            if (!posRegex.isEmpty()) {
+                try {
+                    ret.put(type.getId(), Pattern.compile(posRegex));
+                } catch (PatternSyntaxException e) {
+                    // illegal patterns are not enforced
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Builds readable description of problems recorded in a legality check
+     * @param checkValue result of ConWordCollection.testWordLegality()
+     * @return all problems, one per line
+     */
+    private static String describe(ConWord checkValue) {
+        List<String> lines = new ArrayList<>();
+        String proc;
+
+        try {
+            proc = checkValue.getPronunciation();
+        } catch (Exception e) {
+            proc = "Regex error: " + e.getLocalizedMessage();
+        }
+
+        for (String problem : new String[]{checkValue.getValue(),
+                checkValue.getLocalWord(),
+                checkValue.typeError,
+                checkValue.getDefinition(),
+                proc}) {
+            for (String line : problem.split("\n")) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line.trim());
+                }
+            }
+        }
+
+        return String.join("\n", lines);
+    }
+
+    /**
+     * Result of validating a lexicon
+     */
+    public static final class Report {
+        private final int wordsChecked;
+        private final ConWord[] illegalWords;
+        private final LexiconProblemNode[] problems;
+
+        private Report(int _wordsChecked, List<ConWord> _illegalWords, List<LexiconProblemNode> _problems) {
+            wordsChecked = _wordsChecked;
+            illegalWords = _illegalWords.toArray(new ConWord[0]);
+            problems = _problems.toArray(new LexiconProblemNode[0]);
+        }
+
+        /**
+         * @return true if no illegal words were found
+         */
+        public boolean isClean() {
+            return illegalWords.length == 0;
+        }
+
+        public int getWordsChecked() {
+            return wordsChecked;
+        }
+
+        /**
+         * @return illegal words in alphabetical order
+         */
+        public ConWord[] getIllegalWords() {
+            return Arrays.copyOf(illegalWords, illegalWords.length);
+        }
+
+        /**
+         * @return one problem node per illegal word, describing all of its
+         * problems (alphabetical order)
+         */
+        public LexiconProblemNode[] getProblems() {
+            return Arrays.copyOf(problems, problems.length);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2021, Draque Thompson, draquemail@gmail.com
+ * All rights reserved.
+ *
+ * Licensed under: MIT Licence
+ * See LICENSE.TXT included with this code to read the full license agreement.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot.ManagersCollections;
+
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.ConjugationNode;
+import PolyGlot.Nodes.ConjugationPair;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Full paradigms (every wordform) of many words, generated in one parallel
+ * pass by WordFormIndex. Words are grouped into one table per part of speech.
+ * Each table is columnar: one column per combined conjugation ID, one row per
+ * word. Stored (overriding) values and rule generated values are kept side by
+ * side so that callers may merge them as they require. This is a snapshot:
+ * build a new one after the lexicon or conjugation rules change.
+ *
+ * @author draque
+ */
+public class Paradigms {
+    private final Map<Integer, Table> tablesByType = new HashMap<>();
+    private final Map<Integer, Table> tablesByWord = new HashMap<>();
+
+    Paradigms() {
+    }
+
+    /**
+     * Gets paradigm table of a part of speech
+     * @param typeId ID of part of speech
+     * @return table, or null if no word of this type is part of the snapshot
+     */
+    public Table getTable(Integer typeId) {
+        return tablesByType.get(typeId);
+    }
+
+    /**
+     * Gets paradigm table containing a given word
+     * @param wordId ID of word
+     * @return table, or null if word is not part of the snapshot
+     */
+    public Table getWordTable(Integer wordId) {
+        return tablesByWord.get(wordId);
+    }
+
+    /**
+     * Registers a word to a row of the table of its part of speech, creating
+     * the table if needed
+     * @param word word to add
+     * @param pairs combined IDs of word's part of speech
+     * @param suppressed suppression of each combined ID
+     * @param row row of word within table
+     * @return table of word
+     */
+    Table addWord(ConWord word, ConjugationPair[] pairs, boolean[] suppressed, int row) {
+        Table ret = tablesByType.get(word.getWordTypeId());
+
+        if (ret == null) {
+            ret = new Table(word.getWordTypeId(), pairs, suppressed);
+            tablesByType.put(word.getWordTypeId(), ret);
+        }
+
+        ret.rowIndex.put(word.getId(), row);
+        tablesByWord.put(word.getId(), ret);
+
+        return ret;
+    }
+
+    /**
+     * Allocates columns of all tables once every word is registered
+     */
+    void allocate() {
+        tablesByType.values().forEach(Table::allocate);
+    }
+
+    /**
+     * Paradigms of all words of a single part of speech
+     */
+    public static final class Table {
+        private final int typeId;
+        private final ConjugationPair[] pairs;
+        private final boolean[] suppressed;
+        private final Map<String, Integer> columnIndex = new HashMap<>();
+        private final Map<Integer, Integer> rowIndex = new HashMap<>();
+        private Integer[] wordIds;
+        private boolean[] overridden;
+        private String[][] generated;
+        private String[][] stored;
+
+        private Table(int _typeId, ConjugationPair[] _pairs, boolean[] _suppressed) {
+            typeId = _typeId;
+            pairs = _pairs;
+            suppressed = _suppressed;
+
+            for (int i = 0; i < pairs.length; i++) {
+                columnIndex.putIfAbsent(pairs[i].combinedId, i);
+            }
+        }
+
+        private void allocate() {
+            int rows = rowIndex.size();
+            wordIds = new Integer[rows];
+            overridden = new boolean[rows];
+            generated = new String[pairs.length][rows];
+            stored = new String[pairs.length][rows];
+        }
+
+        /**
+         * Fills the row of a single word. Rows may be filled concurrently.
+         * @param word word to fill row of
+         * @param forms generated forms of word, in column order
+         * @param conjMan conjugation manager holding stored forms
+         */
+        void fillRow(ConWord word, String[] forms, ConjugationManager conjMan) {
+            int row = rowIndex.get(word.getId());
+
+            wordIds[row] = word.getId();
+            overridden[row] = word.isOverrideAutoConjugate();
+
+            for (int col = 0; col < pairs.length; col++) {
+                ConjugationNode node = conjMan.getConjugationByCombinedId(word.getId(), pairs[col].combinedId);
+
+                generated[col][row] = forms[col];
+                stored[col][row] = node == null ? null : node.getValue();
+            }
+        }
+
+        public int getTypeId() {
+            return typeId;
+        }
+
+        public int getRowCount() {
+            return wordIds.length;
+        }
+
+        public int getColumnCount() {
+            return pairs.length;
+        }
+
+        /**
+         * @return combined IDs of columns, in order
+         */
+        public ConjugationPair[] getCombinedIds() {
+            return pairs.clone();
+        }
+
+        /**
+         * Gets row of a word
+         * @param wordId ID of word
+         * @return row of word (-1 if not in table)
+         */
+        public int getRow(Integer wordId) {
+            return rowIndex.getOrDefault(wordId, -1);
+        }
+
+        /**
+         * Gets column of a combined conjugation ID
+         * @param combinedId combined ID
+         * @return column of ID (-1 if not a combined ID of this type)
+         */
+        public int getColumn(String combinedId) {
+            return columnIndex.getOrDefault(combinedId, -1);
+        }
+
+        public Integer getWordId(int row) {
+            return wordIds[row];
+        }
+
+        public ConjugationPair getCombinedId(int col) {
+            return pairs[col];
+        }
+
+        /**
+         * @param col column of combined ID
+         * @return true if this form is suppressed for the part of speech
+         */
+        public boolean isSuppressed(int col) {
+            return suppressed[col];
+        }
+
+        /**
+         * @param row row of word
+         * @return true if the word overrides autogeneration of its forms
+         */
+        public boolean isOverridden(int row) {
+            return overridden[row];
+        }
+
+        /**
+         * Gets form generated by conjugation rules
+         * @param row row of word
+         * @param col column of combined ID
+         * @return generated form, or null if a malformed rule prevented it
+         */
+        public String getGenerated(int row, int col) {
+            return generated[col][row];
+        }
+
+        /**
+         * Gets form stored against the word
+         * @param row row of word
+         * @param col column of combined ID
+         * @return stored form, or null if none stored
+         */
+        public String getStored(int row, int col) {
+            return stored[col][row];
+        }
+
+        /**
+         * Gets form the word takes as printed in dictionaries: its stored
+         * value if one exists, its generated value otherwise
+         * @param row row of word
+         * @param col column of combined ID
+         * @return form of word, or null if none stored and generation failed
+         */
+        public String getForm(int row, int col) {
+            return stored[col][row] != null ? stored[col][row] : generated[col][row];
+        }
+    }
+}
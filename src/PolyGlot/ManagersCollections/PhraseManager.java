@@ -81,6 +81,22 @@ public class PhraseManager extends DictionaryCollection<PhraseNode> {
         return ret;
     }
     
+    /**
+     * Returns pronunciations of all phrases (in order of getAllValues()),
+     * computed in parallel. Pronunciation overrides are respected.
+     * @return pronunciations of phrases, also fetchable by phrase ID
+     */
+    public PronunciationBatch getPronunciationBatch() {
+        List<PhraseNode> phrases = getAllValues();
+        Integer[] ids = new Integer[phrases.size()];
+        
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = phrases.get(i).getId();
+        }
+        
+        return new PronunciationBatch(ids, ids.length, (i) -> phrases.get(i).getPronunciation());
+    }
+    
     private void smoothOrder() {
         List<PhraseNode> orderedNodes = new ArrayList<>(this.getAllValues());
         Collections.sort(orderedNodes);
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2021, Draque Thompson, draquemail@gmail.com
+ * All rights reserved.
+ *
+ * Licensed under: MIT Licence
+ * See LICENSE.TXT included with this code to read the full license agreement.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot.ManagersCollections;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Pronunciations (or romanizations) of many entries computed in one parallel
+ * pass. A failure on one entry is recorded against that entry rather than
+ * aborting the batch. Results are kept in the order of the entries given, and
+ * may also be fetched by node ID where IDs were supplied.
+ *
+ * @author draque
+ */
+public class PronunciationBatch {
+    private final String[] values;
+    private final Exception[] errors;
+    private final Map<Integer, Integer> indexById = new HashMap<>();
+
+    /**
+     * Computes value of every entry in parallel
+     *
+     * @param _ids node IDs of entries (null if entries are not nodes)
+     * @param size number of entries
+     * @param generator computes value of entry at a given index
+     */
+    PronunciationBatch(Integer[] _ids, int size, Generator generator) {
+        values = new String[size];
+        errors = new Exception[size];
+
+        IntStream.range(0, size).parallel().forEach((i) -> {
+            try {
+                values[i] = generator.generate(i);
+            } catch (Exception e) {
+                errors[i] = e;
+            }
+        });
+
+        if (_ids != null) {
+            for (int i = 0; i < _ids.length; i++) {
+                indexById.put(_ids[i], i);
+            }
+        }
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Gets value of entry at index
+     * @param index index of entry
+     * @return value computed, or null if its generation failed
+     */
+    public String getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Gets error raised generating entry at index
+     * @param index index of entry
+     * @return error, or null if entry was generated successfully
+     */
+    public Exception getError(int index) {
+        return errors[index];
+    }
+
+    /**
+     * Gets value of entry for a given node
+     * @param id ID of node
+     * @param onError value returned if generation failed or node is not part
+     * of this batch
+     * @return computed value or onError
+     */
+    public String getValueById(Integer id, String onError) {
+        Integer index = indexById.get(id);
+        String ret = onError;
+
+        if (index != null && errors[index] == null) {
+            ret = values[index];
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets error raised generating entry of a given node
+     * @param id ID of node
+     * @return error, or null if none raised (or node not part of batch)
+     */
+    public Exception getErrorById(Integer id) {
+        Integer index = indexById.get(id);
+        return index == null ? null : errors[index];
+    }
+
+    /**
+     * @return number of entries which could not be generated
+     */
+    public int getErrorCount() {
+        int ret = 0;
+
+        for (Exception e : errors) {
+            if (e != null) {
+                ret++;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Computes the value of a single entry of a batch
+     */
+    interface Generator {
+        String generate(int index) throws Exception;
+    }
+}
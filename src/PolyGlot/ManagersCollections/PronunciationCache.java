@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021, Draque Thompson, draquemail@gmail.com
+ * All rights reserved.
+ *
+ * Licensed under: MIT Licence
+ * See LICENSE.TXT included with this code to read the full license agreement.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot.ManagersCollections;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, least recently used cache of generated pronunciations (or
+ * romanizations). Entries are tied to a rule set version: reading or writing
+ * with a different version than the cache currently holds discards all
+ * entries. Keeps hit/miss counts so that its capacity can be sized.
+ *
+ * @author draque
+ */
+public class PronunciationCache {
+    private final LinkedHashMap<String, String> entries;
+    private int capacity;
+    private int version = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public PronunciationCache(int _capacity) {
+        capacity = _capacity;
+        entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                boolean ret = size() > capacity;
+
+                if (ret) {
+                    evictions++;
+                }
+
+                return ret;
+            }
+        };
+    }
+
+    /**
+     * Gets cached value
+     * @param key cache key
+     * @param _version current rule set version
+     * @return cached value, null if not present
+     */
+    public synchronized String get(String key, int _version) {
+        checkVersion(_version);
+
+        String ret = entries.get(key);
+
+        if (ret == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Caches a value
+     * @param key cache key
+     * @param value value to cache
+     * @param _version rule set version value was generated with
+     */
+    public synchronized void put(String key, String value, int _version) {
+        checkVersion(_version);
+
+        if (capacity > 0) {
+            entries.put(key, value);
+        }
+    }
+
+    private void checkVersion(int _version) {
+        if (_version != version) {
+            entries.clear();
+            version = _version;
+        }
+    }
+
+    /**
+     * Sets maximum number of entries held (0 disables caching)
+     * @param _capacity new capacity
+     */
+    public synchronized void setCapacity(int _capacity) {
+        capacity = _capacity;
+
+        if (entries.size() > capacity) {
+            entries.clear();
+        }
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return fraction of lookups answered from the cache (0 if none yet)
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "entries: " + entries.size() + "/" + capacity
+                + ", hits: " + hits
+                + ", misses: " + misses
+                + ", evictions: " + evictions
+                + ", hit rate: " + String.format("%.1f%%", getHitRate() * 100);
+    }
+}
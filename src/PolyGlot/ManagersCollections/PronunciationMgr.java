@@ -21,16 +21,22 @@ package PolyGlot.ManagersCollections;
 
 import PolyGlot.DictCore;
 import PolyGlot.PGTUtil;
+import PolyGlot.RegexTools;
+import PolyGlot.Nodes.ConWord;
 import PolyGlot.Nodes.PronunciationNode;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import PolyGlot.IPAHandler;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -44,6 +50,15 @@ public class PronunciationMgr {
     private final DictCore core;
     protected boolean recurse = false;
     private List<PronunciationNode> pronunciations = new ArrayList<>();
+    // marks a literal segmentation memo entry currently being solved
+    private static final List<PronunciationNode> IN_PROGRESS = new ArrayList<>();
+    // compiled form of pronunciations, built on demand and dropped whenever the rules change
+    private volatile CompiledRule[] compiledRules = null;
+    private volatile LiteralTrie literalTrie = null;
+    private volatile IpaAnalysis ipaAnalysis = null;
+    // bumped on any change to rules or how they are applied: keys cached results
+    private volatile int ruleVersion = 0;
+    private final PronunciationCache resultCache = new PronunciationCache(PGTUtil.PRONUNCIATION_CACHE_SIZE);
     
     public PronunciationMgr(DictCore _core) {
         core = _core;
@@ -56,6 +71,55 @@ public class PronunciationMgr {
      */
     public void setPronunciations(List<PronunciationNode> _pronunciations) {
         pronunciations = _pronunciations;
+        rulesChanged();
+    }
+    
+    /**
+     * Discards compiled rules. Called by all mutators here; call directly
+     * after modifying a PronunciationNode in place.
+     */
+    public void rulesChanged() {
+        compiledRules = null;
+        literalTrie = null;
+        ruleVersion++;
+    }
+    
+    /**
+     * Gets version of the current rule set. Changes whenever the rules (or
+     * recursion setting) change, so values derived from the rules may be
+     * cached against it.
+     * @return rule set version
+     */
+    public int getRuleVersion() {
+        return ruleVersion;
+    }
+    
+    /**
+     * Gets cache of generated pronunciations, for sizing and statistics
+     * @return result cache
+     */
+    public PronunciationCache getResultCache() {
+        return resultCache;
+    }
+    
+    /**
+     * Gets compiled pronunciation rules, compiling them if necessary
+     * @return compiled rules in priority order
+     */
+    private CompiledRule[] getCompiledRules() {
+        CompiledRule[] ret = compiledRules;
+        
+        if (ret == null) {
+            ret = new CompiledRule[pronunciations.size()];
+            
+            for (int i = 0; i < ret.length; i++) {
+                ret[i] = new CompiledRule(pronunciations.get(i), getToolLabel());
+            }
+            
+            compiledRules = ret;
+        }
+        
+        return ret;
     }
 
     /**
@@ -76,6 +140,7 @@ public class PronunciationMgr {
      */
     public void addAtPosition(int index, PronunciationNode newNode) {
         pronunciations.add(index, newNode);
+        rulesChanged();
     }
 
     /**
@@ -93,6 +158,7 @@ public class PronunciationMgr {
 
         pronunciations.remove(index);
         pronunciations.add(index - 1, node);
+        rulesChanged();
     }
 
     /**
@@ -110,6 +176,7 @@ public class PronunciationMgr {
 
         pronunciations.remove(index);
         pronunciations.add(index + 1, node);
+        rulesChanged();
     }
 
     public void deletePronunciation(PronunciationNode remove) {
@@ -120,10 +187,12 @@ public class PronunciationMgr {
         });
 
         pronunciations = newProcs;
+        rulesChanged();
     }
 
     public void addPronunciation(PronunciationNode newNode) {
         pronunciations.add(newNode);
+        rulesChanged();
     }
 
     /**
@@ -135,6 +204,51 @@ public class PronunciationMgr {
      * @throws java.lang.Exception on malformed regex statements encountered
      */
     public String getPronunciation(String base) throws Exception {
+        int version = ruleVersion;
+        // modes read from properties are part of the key, as they change results without changing rules
+        String key = (core.getPropertiesManager().isDisableProcRegex() ? "L" : "R")
+                + (core.getPropertiesManager().isIgnoreCase() ? "I" : "C")
+                + base;
+        String ret = resultCache.get(key, version);
+        
+        if (ret == null) {
+            ret = getPronunciationUncached(base);
+            resultCache.put(key, ret, version);
+        }
+        
+        return ret;
+    }
+    
+    /**
+     * Returns pronunciations of many values at once, computed in parallel.
+     * Values which fail to generate have their error recorded in the batch.
+     *
+     * @param bases values to find pronunciations of
+     * @return pronunciations in order of values given
+     */
+    public PronunciationBatch getPronunciationBatch(String[] bases) {
+        return new PronunciationBatch(null, bases.length, (i) -> getPronunciation(bases[i]));
+    }
+    
+    /**
+     * Returns pronunciations generated from the values of the given words,
+     * computed in parallel. Pronunciation overrides of words are not
+     * considered (see ConWordCollection.getPronunciationBatch for those).
+     *
+     * @param words words to find pronunciations of
+     * @return pronunciations in order of words given, also fetchable by ID
+     */
+    public PronunciationBatch getPronunciationBatch(ConWord[] words) {
+        Integer[] ids = new Integer[words.length];
+        
+        for (int i = 0; i < words.length; i++) {
+            ids[i] = words[i].getId();
+        }
+        
+        return new PronunciationBatch(ids, words.length, (i) -> getPronunciation(words[i].getValue()));
+    }
+    
+    private String getPronunciationUncached(String base) throws Exception {
         String[] spaceDelimited = base.trim().split(" ");
         String ret = "";
         
@@ -209,27 +323,47 @@ public class PronunciationMgr {
     }
     
     private List<PronunciationNode> getPronunciationElementsWithRegex(String base, int depth, boolean beginning) throws Exception {
+        return getPronunciationElementsWithRegex(getCompiledRules(), base, 0, beginning, newMemo(base));
+    }
+    
+    /**
+     * Creates memo table for segmenting a word: one entry per position of the
+     * word (and its end), for each value of the beginning flag
+     * @param base word to be segmented
+     * @return empty memo table
+     */
+    @SuppressWarnings("unchecked")
+    private static List<PronunciationNode>[][] newMemo(String base) {
+        return new List[2][base.length() + 1];
+    }
+    
+    /**
+     * Segments the remainder of a word from pos onward. Rules are tried in
+     * priority order and the first whose match leads to a complete
+     * segmentation wins. As the result for a given position depends only on
+     * the remaining text, it is memoized: each position is solved once
+     * rather than once per path leading to it.
+     */
+    private List<PronunciationNode> getPronunciationElementsWithRegex(CompiledRule[] rules, String word, int pos, 
+            boolean beginning, List<PronunciationNode>[][] memo) throws Exception {
+        String base = word.substring(pos);
+        int memoRow = beginning ? 1 : 0;
+        
+        if (memo[memoRow][pos] != null) {
+            return memo[memoRow][pos];
+        }
+        
         List<PronunciationNode> ret = new ArrayList<>();
         
-        for (PronunciationNode curNode : pronunciations) {
-            String pattern = curNode.getValue();
+        for (CompiledRule rule : rules) {
+            PronunciationNode curNode = rule.node;
+            
             // skip if set as starting characters, but later in word
-            if (pattern.startsWith("^") && !beginning) {
+            if (rule.anchored && !beginning) {
                 continue;
             }
 
-            // original pattern
-            String origPattern = pattern;
-
-            // make pattern a starting pattern if not already, if it is already, allow it to accept following strings
-            if (pattern.startsWith("^")) {
-                pattern = "^(" + pattern.substring(1) + ").*";
-            } else {
-                pattern = "^(" + pattern + ").*";
-            }
-
-            Pattern findString = Pattern.compile(pattern);
-            Matcher matcher = findString.matcher(base);
+            Matcher matcher = RegexTools.guardedMatcher(rule.getLeadingPattern(), base, rule.label);
 
             if (matcher.matches()) {
                 String leadingChars = matcher.group(1);
@@ -239,13 +373,14 @@ public class PronunciationMgr {
                     continue;
                 }
                 List<PronunciationNode> temp
-                        = getPronunciationElementsWithRegex(base.substring(leadingChars.length()), depth + 1, false);
+                        = getPronunciationElementsWithRegex(rules, word, pos + leadingChars.length(), false, memo);
 
                 try {
                     if (leadingChars.length() == base.length() || !temp.isEmpty()) {
                         PronunciationNode finalNode = new PronunciationNode();
                         finalNode.setEqual(curNode);
-                        finalNode.setPronunciation(leadingChars.replaceAll(origPattern, curNode.getPronunciation()));
+                        finalNode.setPronunciation(RegexTools.guardedMatcher(rule.getPattern(), leadingChars, rule.label)
+                                .replaceAll(curNode.getPronunciation()));
                         ret.add(finalNode);
                         ret.addAll(temp);
                         break;
@@ -258,27 +393,60 @@ public class PronunciationMgr {
             }
         }
         
+        memo[memoRow][pos] = ret;
+        
         return ret;
     }
     
     private List<PronunciationNode> getPronunciationElementsNoRegex(String base, int depth, boolean beginning) throws Exception {
+        boolean ignoreCase = core.getPropertiesManager().isIgnoreCase();
+        LiteralTrie trie = literalTrie;
+        
+        if (trie == null || trie.ignoreCase != ignoreCase) {
+            trie = new LiteralTrie(pronunciations.toArray(new PronunciationNode[0]), ignoreCase);
+            literalTrie = trie;
+        }
+        
+        return getPronunciationElementsNoRegex(trie, base, 0, beginning, newMemo(base));
+    }
+    
+    /**
+     * Literal counterpart of the memoized regex segmentation above
+     */
+    private List<PronunciationNode> getPronunciationElementsNoRegex(LiteralTrie trie, String word, int pos, 
+            boolean beginning, List<PronunciationNode>[][] memo) throws Exception {
+        // substring first: a rule whose value grows when lower cased may overstep the word, as it always has
+        String base = word.substring(pos);
+        int memoRow = beginning ? 1 : 0;
+        
+        if (memo[memoRow][pos] == IN_PROGRESS) {
+            // an empty rule loops back to the same position: this would never terminate
+            throw new Exception("Max recursions for " + getToolLabel() + " exceeded.");
+        } else if (memo[memoRow][pos] != null) {
+            return memo[memoRow][pos];
+        }
+        
+        memo[memoRow][pos] = IN_PROGRESS;
+        
         List<PronunciationNode> ret = new ArrayList<>();
         
-        for (PronunciationNode curNode : pronunciations) {
+        // only rules found along the trie path can match here: test those in priority order
+        for (int ruleIndex : trie.getCandidates(word, pos)) {
+            PronunciationNode curNode = trie.nodes[ruleIndex];
             String pattern = curNode.getValue();
             // do not overstep string
             if (pattern.length() <= base.length()) {
                 // capture string to compare based on pattern length
                 String comp = base.substring(0, curNode.getValue().length());
 
-                if (core.getPropertiesManager().isIgnoreCase()) {
+                if (trie.ignoreCase) {
                     comp = comp.toLowerCase();
                     pattern = pattern.toLowerCase();
                 }
 
                 if (comp.equals(pattern)) {
                     List<PronunciationNode> temp
-                            = getPronunciationElementsNoRegex(base.substring(pattern.length()), depth + 1, false);
+                            = getPronunciationElementsNoRegex(trie, word, pos + pattern.length(), false, memo);
 
                     // if lengths are equal, success! return. If unequal and no further match found-failure
                     if (pattern.length() == base.length() || !temp.isEmpty()) {
@@ -290,6 +458,8 @@ public class PronunciationMgr {
             }
         }
         
+        memo[memoRow][pos] = ret;
+        
         return ret;
     }
     
@@ -297,18 +467,463 @@ public class PronunciationMgr {
         List<PronunciationNode> ret = new ArrayList<>();
         
         // when using recursion, only a single node can be returned, inherently.
-        String retStr = base;
         PronunciationNode retNode = new PronunciationNode();
 
-        for (PronunciationNode curNode : pronunciations) {
-            retStr = retStr.replaceAll(curNode.getValue(), curNode.getPronunciation());
-        }
-
-        retNode.setPronunciation(retStr);
+        retNode.setPronunciation(rewrite(getCompiledRules(), base));
         ret.add(retNode);
         
         return ret;
     }
+    
+    /**
+     * Applies each rule in turn to the output of the previous one, with the
+     * same result as calling String.replaceAll(value, pronunciation) for every
+     * rule. Text is rewritten between two buffers, so no string is built for
+     * each rule, and rules which do not match cost only the search.
+     * @param rules compiled rules in order
+     * @param base text to rewrite
+     * @return rewritten text
+     */
+    private static String rewrite(CompiledRule[] rules, String base) {
+        StringBuilder cur = new StringBuilder(base);
+        StringBuilder next = new StringBuilder(base.length());
+        
+        for (CompiledRule rule : rules) {
+            // plain text rules which cannot match are skipped without running the regex engine
+            if (rule.literal != null && cur.indexOf(rule.literal) == -1) {
+                continue;
+            }
+            
+            Matcher matcher = RegexTools.guardedMatcher(rule.getPattern(), cur, rule.label);
+            
+            if (!matcher.find()) {
+                continue;
+            }
+            
+            next.setLength(0);
+            
+            if (rule.replacement.isResolved()) {
+                int last = 0;
+
+                do {
+                    next.append(cur, last, matcher.start());
+                    rule.replacement.appendTo(matcher, cur, next);
+                    last = matcher.end();
+                } while (matcher.find());
+
+                next.append(cur, last, cur.length());
+            } else {
+                // let Matcher interpret (and reject) the replacement itself
+                next.append(matcher.replaceAll(rule.replacement.getReplacement()));
+            }
+            
+            StringBuilder swap = cur;
+            cur = next;
+            next = swap;
+        }
+        
+        return cur.toString();
+    }
+
+    /**
+     * Pronunciation rule with its patterns compiled once. Compilation errors
+     * are held and only thrown when the rule is actually used, so that a
+     * malformed rule fails exactly where it would when compiled on each use.
+     */
+    private static final class CompiledRule {
+        private static final Pattern REGEX_CHARS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+        final PronunciationNode node;
+        final boolean anchored;
+        // names rule in errors raised running it
+        final String label;
+        // null if pattern is malformed
+        final ReplacementTemplate replacement;
+        // value of rule if it contains no regex syntax, null otherwise
+        final String literal;
+        private final Pattern leadingPattern;
+        private final PatternSyntaxException leadingError;
+        private final Pattern pattern;
+        private final PatternSyntaxException patternError;
+
+        CompiledRule(PronunciationNode _node, String toolLabel) {
+            String origPattern = _node.getValue();
+            String leading;
+            Pattern compiled = null;
+            PatternSyntaxException error = null;
+            
+            node = _node;
+            label = toolLabel + ": rule \"" + origPattern + "\"";
+            anchored = origPattern.startsWith("^");
+
+            // make pattern a starting pattern if not already, if it is already, allow it to accept following strings
+            if (anchored) {
+                leading = "^(" + origPattern.substring(1) + ").*";
+            } else {
+                leading = "^(" + origPattern + ").*";
+            }
+            
+            try {
+                compiled = Pattern.compile(leading);
+            } catch (PatternSyntaxException e) {
+                error = e;
+            }
+            
+            leadingPattern = compiled;
+            leadingError = error;
+            compiled = null;
+            error = null;
+            
+            try {
+                compiled = Pattern.compile(origPattern);
+            } catch (PatternSyntaxException e) {
+                error = e;
+            }
+            
+            pattern = compiled;
+            patternError = error;
+            replacement = compiled == null ? null : new ReplacementTemplate(_node.getPronunciation(), compiled);
+            literal = origPattern.isEmpty() || REGEX_CHARS.matcher(origPattern).find() ? null : origPattern;
+        }
+        
+        /**
+         * @return pattern matching rule at start of text, capturing the match
+         * as group 1
+         */
+        Pattern getLeadingPattern() {
+            if (leadingError != null) {
+                throw leadingError;
+            }
+            
+            return leadingPattern;
+        }
+        
+        /**
+         * @return rule's own pattern
+         */
+        Pattern getPattern() {
+            if (patternError != null) {
+                throw patternError;
+            }
+            
+            return pattern;
+        }
+    }
+
+    /**
+     * Replacement string parsed once into literal text and group references,
+     * following the rules of Matcher.appendReplacement(). Replacements which
+     * cannot be resolved up front (named groups, malformed references) are
+     * left to Matcher itself, so they fail with the same error on first use.
+     */
+    private static final class ReplacementTemplate {
+        private final String replacement;
+        // literal text before each group reference, with trailing text last
+        private final String[] literals;
+        private final int[] groups;
+        
+        ReplacementTemplate(String _replacement, Pattern _pattern) {
+            replacement = _replacement;
+            
+            List<String> parsedLiterals = new ArrayList<>();
+            List<Integer> parsedGroups = new ArrayList<>();
+            int groupCount = _pattern.matcher("").groupCount();
+            StringBuilder literal = new StringBuilder();
+            boolean resolved = true;
+            int cursor = 0;
+            
+            while (resolved && cursor < replacement.length()) {
+                char nextChar = replacement.charAt(cursor);
+                
+                if (nextChar == '\\') {
+                    cursor++;
+                    
+                    if (cursor == replacement.length()) {
+                        resolved = false;
+                    } else {
+                        literal.append(replacement.charAt(cursor));
+                        cursor++;
+                    }
+                } else if (nextChar == '$') {
+                    cursor++;
+                    int refNum = cursor < replacement.length() ? replacement.charAt(cursor) - '0' : -1;
+                    
+                    if (refNum < 0 || refNum > 9) {
+                        resolved = false;
+                    } else {
+                        cursor++;
+                        
+                        // take further digits only while they still name an existing group
+                        while (cursor < replacement.length()) {
+                            int nextDigit = replacement.charAt(cursor) - '0';
+                            int newRef = refNum * 10 + nextDigit;
+                            
+                            if (nextDigit < 0 || nextDigit > 9 || newRef > groupCount) {
+                                break;
+                            }
+                            
+                            refNum = newRef;
+                            cursor++;
+                        }
+                        
+                        if (refNum > groupCount) {
+                            resolved = false;
+                        } else {
+                            parsedLiterals.add(literal.toString());
+                            parsedGroups.add(refNum);
+                            literal.setLength(0);
+                        }
+                    }
+                } else {
+                    literal.append(nextChar);
+                    cursor++;
+                }
+            }
+            
+            if (resolved) {
+                parsedLiterals.add(literal.toString());
+                literals = parsedLiterals.toArray(new String[0]);
+                groups = new int[parsedGroups.size()];
+                
+                for (int i = 0; i < groups.length; i++) {
+                    groups[i] = parsedGroups.get(i);
+                }
+            } else {
+                literals = null;
+                groups = null;
+            }
+        }
+        
+        /**
+         * @return true if replacement was parsed, false if it must be left to
+         * Matcher
+         */
+        boolean isResolved() {
+            return literals != null;
+        }
+        
+        String getReplacement() {
+            return replacement;
+        }
+        
+        /**
+         * Appends the replacement of the current match of a matcher. Only
+         * valid for resolved replacements.
+         * @param matcher matcher positioned on a match
+         * @param text text matcher is working on
+         * @param out buffer to append to
+         */
+        void appendTo(Matcher matcher, CharSequence text, StringBuilder out) {
+            for (int i = 0; i < groups.length; i++) {
+                out.append(literals[i]);
+                
+                if (matcher.start(groups[i]) != -1) {
+                    out.append(text, matcher.start(groups[i]), matcher.end(groups[i]));
+                }
+            }
+            
+            out.append(literals[groups.length]);
+        }
+    }
+
+    /**
+     * Character trie over the values of literal (non-regex) pronunciation
+     * rules. Walking a word from a position yields every rule which may match
+     * there, without testing each rule in turn. When ignoring case, both rule
+     * values and word characters are folded character by character, which
+     * finds a superset of the rules String.toLowerCase() comparison accepts:
+     * candidates must still be confirmed by that comparison.
+     */
+    private static final class LiteralTrie {
+        final PronunciationNode[] nodes;
+        final boolean ignoreCase;
+        private final TrieNode root = new TrieNode();
+        
+        LiteralTrie(PronunciationNode[] _nodes, boolean _ignoreCase) {
+            nodes = _nodes;
+            ignoreCase = _ignoreCase;
+            
+            for (int i = 0; i < nodes.length; i++) {
+                String value = nodes[i].getValue();
+                TrieNode cur = root;
+                
+                for (int j = 0; j < value.length(); j++) {
+                    cur = cur.children.computeIfAbsent(fold(value.charAt(j)), (c) -> new TrieNode());
+                }
+                
+                cur.rules.add(i);
+            }
+        }
+        
+        /**
+         * Gets indices of all rules whose value may match the word at pos
+         * @param word word being segmented
+         * @param pos position in word
+         * @return rule indices in priority order
+         */
+        int[] getCandidates(String word, int pos) {
+            List<Integer> found = new ArrayList<>(root.rules);
+            TrieNode cur = root;
+            
+            for (int i = pos; i < word.length(); i++) {
+                cur = cur.children.get(fold(word.charAt(i)));
+                
+                if (cur == null) {
+                    break;
+                }
+                
+                found.addAll(cur.rules);
+            }
+            
+            int[] ret = new int[found.size()];
+            
+            for (int i = 0; i < ret.length; i++) {
+                ret[i] = found.get(i);
+            }
+            
+            Arrays.sort(ret);
+            
+            return ret;
+        }
+        
+        private char fold(char c) {
+            // upper then lower so that variant forms (such as final sigma) share a key
+            return ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+        }
+        
+        private static final class TrieNode {
+            final Map<Character, TrieNode> children = new HashMap<>();
+            final List<Integer> rules = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Finds which of a fixed set of strings occur within a text, walking a
+     * character trie of the set from each position of the text rather than
+     * searching the text for each string in turn
+     */
+    private static final class SubstringIndex {
+        private final TrieNode root = new TrieNode();
+        
+        SubstringIndex(String[] entries) {
+            for (int i = 0; i < entries.length; i++) {
+                TrieNode cur = root;
+                
+                for (int j = 0; j < entries[i].length(); j++) {
+                    cur = cur.children.computeIfAbsent(entries[i].charAt(j), (c) -> new TrieNode());
+                }
+                
+                cur.entries.add(i);
+            }
+        }
+        
+        /**
+         * @param text text to search
+         * @return indices of all entries contained in text
+         */
+        BitSet findContained(String text) {
+            BitSet ret = new BitSet();
+            
+            // empty entries are contained in everything
+            root.entries.forEach((i) -> ret.set(i));
+            
+            for (int pos = 0; pos < text.length(); pos++) {
+                TrieNode cur = root;
+                
+                for (int i = pos; i < text.length() && cur != null; i++) {
+                    cur = cur.children.get(text.charAt(i));
+                    
+                    if (cur != null) {
+                        cur.entries.forEach((j) -> ret.set(j));
+                    }
+                }
+            }
+            
+            return ret;
+        }
+        
+        private static final class TrieNode {
+            final Map<Character, TrieNode> children = new HashMap<>();
+            final List<Integer> entries = new ArrayList<>();
+        }
+    }
+    
+    /**
+     * IPA sounds each alphabet character can produce (and the inverse) under
+     * a given version of the rules. Rule values are scanned once for the
+     * alphabet characters they contain and pronunciations once for the IPA
+     * characters they contain, each against an index of the whole set.
+     */
+    private static final class IpaAnalysis {
+        private static final String[] IPA_CHARS = IPAHandler.getAllIpaChars();
+        private static final SubstringIndex IPA_INDEX = new SubstringIndex(IPA_CHARS);
+        
+        final int version;
+        final String[] alphaValues;
+        final Map<String, String[]> soundsPerCharacter = new HashMap<>();
+        final Map<String, String[]> charactersPerSound = new HashMap<>();
+        
+        IpaAnalysis(int _version, String[] _alphaValues, PronunciationNode[] rules) {
+            version = _version;
+            alphaValues = _alphaValues;
+            
+            SubstringIndex alphaIndex = new SubstringIndex(alphaValues);
+            List<List<PronunciationNode>> alphaAssociations = new ArrayList<>();
+            Map<PronunciationNode, BitSet> soundsPerRule = new HashMap<>();
+            
+            for (String alphaValue : alphaValues) {
+                alphaAssociations.add(new ArrayList<>());
+            }
+            
+            // associate each alphabetic character with every rule whose VALUE includes it
+            for (PronunciationNode rule : rules) {
+                BitSet contained = alphaIndex.findContained(rule.getValue());
+                
+                for (int i = contained.nextSetBit(0); i >= 0; i = contained.nextSetBit(i + 1)) {
+                    alphaAssociations.get(i).add(rule);
+                }
+            }
+            
+            // pair each IPA character found in an associated rule's REPLACEMENT with that rule's VALUE
+            for (int i = 0; i < alphaValues.length; i++) {
+                List<String> retValues = new ArrayList<>();
+                Set<String> added = new HashSet<>();
+                
+                for (PronunciationNode rule : alphaAssociations.get(i)) {
+                    BitSet sounds = soundsPerRule.computeIfAbsent(rule, 
+                            (r) -> IPA_INDEX.findContained(r.getPronunciation()));
+                    
+                    for (int j = sounds.nextSetBit(0); j >= 0; j = sounds.nextSetBit(j + 1)) {
+                        if (added.add(IPA_CHARS[j])) {
+                            retValues.add(IPA_CHARS[j]);
+                            retValues.add(rule.getValue());
+                            added.add(rule.getValue());
+                        }
+                    }
+                }
+                
+                soundsPerCharacter.put(alphaValues[i], retValues.toArray(new String[0]));
+            }
+            
+            // values and keys are swapped
+            Map<String, List<String>> inverse = new HashMap<>();
+            
+            soundsPerCharacter.entrySet().forEach((entry) -> {
+                String[] values = entry.getValue();
+                
+                for (int j = 0; j < values.length; j += 2) {
+                    List<String> chars = inverse.computeIfAbsent(values[j], (v) -> new ArrayList<>());
+                    
+                    if (!chars.contains(entry.getKey())) {
+                        chars.add(entry.getKey());
+                    }
+                }
+            });
+            
+            inverse.entrySet().forEach((entry) -> {
+                charactersPerSound.put(entry.getKey(), entry.getValue().toArray(new String[0]));
+            });
+        }
+    }
 
     /**
      * Writes all pronunciation information to XML document
@@ -337,6 +952,7 @@ public class PronunciationMgr {
 
     public void setRecurse(boolean _recurse) {
         this.recurse = _recurse;
+        rulesChanged();
     }
     
     /**
@@ -413,50 +1029,7 @@ public class PronunciationMgr {
      * @return 
      */
     public Map<String, String[]> getIpaSoundsPerCharacter() {
-        Map<String, String[]> ret = new HashMap<>();
-        String[] allIpaChars = IPAHandler.getAllIpaChars();
-        String[] alphaValues = core.getPropertiesManager().getAlphaOrder().keySet().toArray(new String[0]);
-        Map<String, List<PronunciationNode>> alphaAssociations = new HashMap<>();
-        
-        // Test if the VALUE for each pronunciation pair (containing the match pattern) includes any given
-        // alhpabetic character. If so, associate the alphabetic character with the pronunciation
-        for (PronunciationNode pronunciation : pronunciations) {
-            for (String alphaChar : alphaValues) {
-                if (pronunciation.getValue().contains(alphaChar)) {
-                    if (alphaAssociations.containsKey(alphaChar)) {
-                        alphaAssociations.get(alphaChar).add(pronunciation);
-                    } else {
-                        List<PronunciationNode> associationList = new ArrayList<>();
-                        associationList.add(pronunciation);
-                        alphaAssociations.put(alphaChar, associationList);
-                    }
-                }
-            }
-        }
-        
-        // Next, check through each REPLACEMENT pattern of every pattern for each IPA
-        // character. For those that match, add the IPA Character, then the pronunciaton
-        // VALUE to the return. Ths returns the Alphabet character as a key value leading
-        // to paired IPA characters they can represent and the situation WHEN they
-        // represent those characters
-        for (String alphaChar : alphaValues) {
-            List<String> retValues = new ArrayList<>();
-            
-            if (alphaAssociations.containsKey(alphaChar)) {
-                for (PronunciationNode procNode : alphaAssociations.get(alphaChar)) {
-                    for (String ipaChar : allIpaChars) {
-                        if (procNode.getPronunciation().contains(ipaChar) && !retValues.contains(ipaChar)) {
-                            retValues.add(ipaChar);
-                            retValues.add(procNode.getValue());
-                        }
-                    }
-                }
-            }
-            
-            ret.put(alphaChar, retValues.toArray(new String[0]));
-        }
-        
-        return ret;
+        return copyOf(getIpaAnalysis().soundsPerCharacter);
     }
     
     /**
@@ -464,25 +1037,32 @@ public class PronunciationMgr {
      * @return 
      */
     public Map<String, String[]> getCharactersPerIpaSound() {
+        return copyOf(getIpaAnalysis().charactersPerSound);
+    }
+    
+    private static Map<String, String[]> copyOf(Map<String, String[]> map) {
         Map<String, String[]> ret = new HashMap<>();
-        Map<String, String[]> charsPerIpa = getIpaSoundsPerCharacter();
-        
-        // values and keys are swapped
-        for (String key : charsPerIpa.keySet()) {
-            String[] values = charsPerIpa.get(key);
-            for (int i = 0; i < values.length; i += 2) {
-                String value = values[i];
-                if (ret.containsKey(value)) {
-                    List<String> curVals = new  ArrayList(Arrays.asList(ret.get(value)));
-                    if (!curVals.contains(key)) {
-                        curVals.add(key);
-                    }
-                    
-                    ret.replace(value, curVals.toArray(new String[0]));
-                } else {
-                    ret.put(value, new String[]{key});
-                }
-            }
+        
+        map.entrySet().forEach((entry) -> {
+            ret.put(entry.getKey(), entry.getValue().clone());
+        });
+        
+        return ret;
+    }
+    
+    /**
+     * Gets IPA analysis of the current rules, computing it only if the rules
+     * or alphabet have changed since it was last computed
+     * @return current analysis
+     */
+    private IpaAnalysis getIpaAnalysis() {
+        IpaAnalysis ret = ipaAnalysis;
+        int version = ruleVersion;
+        String[] alphaValues = core.getPropertiesManager().getAlphaOrder().keySet().toArray(new String[0]);
+        
+        if (ret == null || ret.version != version || !Arrays.equals(ret.alphaValues, alphaValues)) {
+            ret = new IpaAnalysis(version, alphaValues, pronunciations.toArray(new PronunciationNode[0]));
+            ipaAnalysis = ret;
         }
         
         return ret;
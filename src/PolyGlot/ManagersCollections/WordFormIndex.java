@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2021, Draque Thompson, draquemail@gmail.com
+ * All rights reserved.
+ *
+ * Licensed under: MIT Licence
+ * See LICENSE.TXT included with this code to read the full license agreement.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot.ManagersCollections;
+
+import PolyGlot.DictCore;
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.ConjugationPair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Materialized wordforms generated by conjugation rules for each word. Forms
+ * are generated the first time a word is looked up and kept until the word
+ * (including its class values and part of speech) or the rules and templates
+ * of its part of speech change. Safe to read from several threads at once,
+ * provided the lexicon and rules are not modified at the same time.
+ *
+ * @author draque
+ */
+public class WordFormIndex {
+    private final DictCore core;
+    private final Map<Integer, WordForms> forms = new ConcurrentHashMap<>();
+
+    public WordFormIndex(DictCore _core) {
+        core = _core;
+    }
+
+    /**
+     * Gets all autogenerated forms of a word, in the order of the combined
+     * IDs of its part of speech (getAllCombinedIds). Forms which could not be
+     * generated due to a malformed rule are null.
+     *
+     * @param word word to fetch forms of
+     * @return generated forms of word
+     */
+    public String[] getForms(ConWord word) {
+        return getEntry(word, true).forms;
+    }
+
+    /**
+     * Gets combined IDs matching the forms returned by getForms()
+     *
+     * @param word word to fetch combined IDs for
+     * @return combined ID pairs of word's part of speech
+     */
+    public ConjugationPair[] getCombinedIds(ConWord word) {
+        return getEntry(word, true).pairs;
+    }
+
+    /**
+     * Builds a reverse lookup from every form of the given words to the word
+     * and combined ID producing it. Stored forms are indexed wherever present,
+     * as dictionaries print them. Generated forms are also indexed unless the
+     * word overrides autogeneration, as exports print them in that case.
+     * Suppressed forms and blank forms are skipped. Forms are generated in
+     * parallel.
+     *
+     * @param words words to index
+     * @param ignoreCase true if lookups should be case insensitive
+     * @return reverse lookup of given words
+     */
+    public WordFormLookup buildLookup(Collection<ConWord> words, boolean ignoreCase) {
+        ConWord[] snapshot = getSnapshot(words);
+        Paradigms paradigms = buildParadigms(snapshot, true);
+        List<WordFormLookup.Reference> references = new ArrayList<>();
+
+        for (ConWord word : snapshot) {
+            Paradigms.Table table = paradigms.getWordTable(word.getId());
+            int row = table.getRow(word.getId());
+
+            for (int col = 0; col < table.getColumnCount(); col++) {
+                if (table.isSuppressed(col)) {
+                    continue;
+                }
+
+                String combinedId = table.getCombinedId(col).combinedId;
+                String stored = table.getStored(row, col);
+                String generated = table.getGenerated(row, col);
+
+                if (stored != null && !stored.trim().isEmpty()) {
+                    references.add(new WordFormLookup.Reference(stored, word.getId(), combinedId, true));
+                }
+
+                if (!table.isOverridden(row) && generated != null && !generated.trim().isEmpty()
+                        && !generated.equals(stored)) {
+                    references.add(new WordFormLookup.Reference(generated, word.getId(), combinedId, false));
+                }
+            }
+        }
+
+        return new WordFormLookup(references, ignoreCase);
+    }
+
+    /**
+     * Builds full paradigms of the given words: stored and generated forms
+     * for every combined ID of their parts of speech. Forms are generated in
+     * parallel, and reuse (and refresh) the forms cached here.
+     *
+     * @param words words to build paradigms of
+     * @return paradigms of given words, in tables per part of speech
+     */
+    public Paradigms buildParadigms(Collection<ConWord> words) {
+        return buildParadigms(getSnapshot(words), true);
+    }
+
+    /**
+     * Builds full paradigms of the given words as above. If cacheForms is
+     * false, forms already cached here are reused but newly generated forms
+     * are not kept, so that one-off passes over the lexicon (such as exports)
+     * do not leave every form of every word in memory.
+     *
+     * @param words words to build paradigms of
+     * @param cacheForms whether to cache newly generated forms
+     * @return paradigms of given words, in tables per part of speech
+     */
+    public Paradigms buildParadigms(Collection<ConWord> words, boolean cacheForms) {
+        return buildParadigms(getSnapshot(words), cacheForms);
+    }
+
+    private Paradigms buildParadigms(ConWord[] snapshot, boolean cacheForms) {
+        ConjugationManager conjMan = core.getConjugationManager();
+        Paradigms ret = new Paradigms();
+        Paradigms.Table[] tables = new Paradigms.Table[snapshot.length];
+        Map<Integer, Integer> rowCounts = new HashMap<>();
+        Map<Integer, ConjugationPair[]> typePairs = new HashMap<>();
+        Map<Integer, boolean[]> suppressed = new HashMap<>();
+
+        // assign rows serially so that filling them may run in parallel
+        for (int i = 0; i < snapshot.length; i++) {
+            Integer typeId = snapshot[i].getWordTypeId();
+            int row = rowCounts.getOrDefault(typeId, 0);
+
+            // combined IDs and their suppression are looked up once per part of speech
+            if (!typePairs.containsKey(typeId)) {
+                typePairs.put(typeId, conjMan.getAllCombinedIds(typeId));
+            }
+
+            ConjugationPair[] pairs = typePairs.get(typeId);
+
+            if (!suppressed.containsKey(typeId)) {
+                boolean[] typeSuppressed = new boolean[pairs.length];
+
+                for (int col = 0; col < pairs.length; col++) {
+                    typeSuppressed[col] = conjMan.isCombinedConjlSurpressed(pairs[col].combinedId, typeId);
+                }
+
+                suppressed.put(typeId, typeSuppressed);
+            }
+
+            tables[i] = ret.addWord(snapshot[i], pairs, suppressed.get(typeId), row);
+            rowCounts.put(typeId, row + 1);
+        }
+
+        ret.allocate();
+
+        IntStream.range(0, snapshot.length).parallel().forEach((i) -> {
+            tables[i].fillRow(snapshot[i], getEntry(snapshot[i], cacheForms).forms, conjMan);
+        });
+
+        return ret;
+    }
+
+    private static ConWord[] getSnapshot(Collection<ConWord> words) {
+        ConWord[] ret = words.toArray(new ConWord[0]);
+        Arrays.sort(ret, (a, b) -> a.getId().compareTo(b.getId()));
+
+        return ret;
+    }
+
+    /**
+     * Removes cached forms of a word
+     * @param wordId ID of word
+     */
+    public void remove(Integer wordId) {
+        forms.remove(wordId);
+    }
+
+    public void clear() {
+        forms.clear();
+    }
+
+    public int size() {
+        return forms.size();
+    }
+
+    private WordForms getEntry(ConWord word, boolean cache) {
+        ConjugationManager conjMan = core.getConjugationManager();
+        WordForms ret = forms.get(word.getId());
+
+        if (ret == null || ret.isStale(word, conjMan)) {
+            ret = new WordForms(word, conjMan);
+
+            if (cache) {
+                forms.put(word.getId(), ret);
+            }
+        }
+
+        return ret;
+    }
+
+    private static final class WordForms {
+        final ConWord node;
+        final int revision;
+        final int typeId;
+        final int rulesRevision;
+        final ConjugationPair[] pairs;
+        final String[] forms;
+
+        WordForms(ConWord word, ConjugationManager conjMan) {
+            node = word;
+            revision = word.getRevision();
+            typeId = word.getWordTypeId();
+            rulesRevision = conjMan.getRulesRevision(typeId);
+            pairs = conjMan.getAllCombinedIds(typeId);
+            forms = new String[pairs.length];
+
+            for (int i = 0; i < pairs.length; i++) {
+                // erroring entries are left null for callers to skip
+                try {
+                    forms[i] = conjMan.declineWord(word, pairs[i].combinedId);
+                } catch (Exception e) {
+                    // IOHandler.writeErrorLog(e);
+                }
+            }
+        }
+
+        boolean isStale(ConWord word, ConjugationManager conjMan) {
+            return node != word
+                    || revision != word.getRevision()
+                    || typeId != word.getWordTypeId()
+                    || rulesRevision != conjMan.getRulesRevision(typeId);
+        }
+    }
+}
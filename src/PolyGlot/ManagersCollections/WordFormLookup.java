@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2021, Draque Thompson, draquemail@gmail.com
+ * All rights reserved.
+ *
+ * Licensed under: MIT Licence
+ * See LICENSE.TXT included with this code to read the full license agreement.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot.ManagersCollections;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reverse index from surface wordforms (generated or stored) to the words
+ * and combined conjugation IDs which produce them. This is a snapshot: build a
+ * new one via ConWordCollection.buildFormLookup() after the lexicon or
+ * conjugation rules change.
+ *
+ * @author draque
+ */
+public class WordFormLookup {
+    private final Map<String, Reference[]> forms = new HashMap<>();
+    private final boolean ignoreCase;
+
+    /**
+     * @param _references references to index, in the order they should be
+     * returned from lookups
+     * @param _ignoreCase true if forms should be matched case insensitively
+     */
+    WordFormLookup(List<Reference> _references, boolean _ignoreCase) {
+        Map<String, List<Reference>> build = new HashMap<>();
+        ignoreCase = _ignoreCase;
+
+        for (Reference ref : _references) {
+            build.computeIfAbsent(fold(ref.form), (k) -> new ArrayList<>()).add(ref);
+        }
+
+        build.entrySet().forEach((entry) -> {
+            forms.put(entry.getKey(), entry.getValue().toArray(new Reference[0]));
+        });
+    }
+
+    /**
+     * Finds all words with a form equal to the given text
+     * @param form surface form to look up
+     * @return all matching references, ordered by word ID (empty if none)
+     */
+    public Reference[] lookup(String form) {
+        Reference[] ret = forms.get(fold(form));
+
+        return ret == null ? new Reference[0] : ret.clone();
+    }
+
+    /**
+     * @return number of distinct forms indexed
+     */
+    public int size() {
+        return forms.size();
+    }
+
+    private String fold(String form) {
+        return ignoreCase ? form.toLowerCase() : form;
+    }
+
+    /**
+     * A single word/combined conjugation ID producing a form
+     */
+    public static final class Reference {
+        public final String form;
+        public final int wordId;
+        public final String combinedId;
+        public final boolean stored; // true if form is stored against the word rather than generated
+
+        public Reference(String _form, int _wordId, String _combinedId, boolean _stored) {
+            form = _form;
+            wordId = _wordId;
+            combinedId = _combinedId;
+            stored = _stored;
+        }
+
+        @Override
+        public String toString() {
+            return form + " (" + wordId + combinedId + ")";
+        }
+    }
+}
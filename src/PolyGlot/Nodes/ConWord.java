@@ -23,6 +23,7 @@ import PolyGlot.DictCore;
 import PolyGlot.ManagersCollections.ConWordCollection;
 import PolyGlot.PGTUtil;
 import PolyGlot.WebInterface;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -46,6 +47,7 @@ public class ConWord extends DictNode {
     private String localWord;
     private int typeId;
     protected String definition;
+    private byte[] compactDefinition = null; // UTF-8 form of definition when compacted (definition is then null)
     private String pronunciation;
     private String etymNotes;
     private boolean procOverride;
@@ -56,6 +58,7 @@ public class ConWord extends DictNode {
     private final Map<Integer, Integer> classValues = new HashMap<>();
     private final Map<Integer, String> classTextValues = new HashMap<>();
     private Object filterEtyParent;
+    private int revision = 0; // bumped on every change to the word's own values
     public String typeError = ""; // used only for returning error state
 
     public ConWord() {
@@ -88,23 +91,32 @@ public class ConWord extends DictNode {
      * @return
      */
     public boolean isWordLegal() {
-        ConWord checkValue = parentCollection.testWordLegality(this);
+        return parentCollection.testWordLegality(this).isLegalityClean();
+    }
+
+    /**
+     * For words returned from ConWordCollection.testWordLegality(): returns
+     * whether no problems were recorded
+     *
+     * @return true if legality check found no problems
+     */
+    public boolean isLegalityClean() {
         String checkProc;
 
         // catches pronunciations which lead to regex errors
         try {
-            checkProc = checkValue.getPronunciation();
+            checkProc = getPronunciation();
         }
         catch (Exception e) {
             // IOHandler.writeErrorLog(e);
             checkProc = "Regex error: " + e.getLocalizedMessage();
         }
 
-        return checkValue.getValue().isEmpty()
-                && checkValue.definition.isEmpty()
-                && checkValue.localWord.isEmpty()
+        return getValue().isEmpty()
+                && getDefinition().isEmpty()
+                && localWord.isEmpty()
                 && checkProc.isEmpty()
-                && checkValue.typeError.isEmpty();
+                && typeError.isEmpty();
     }
 
     public boolean isRulesOverride() {
@@ -113,6 +125,18 @@ public class ConWord extends DictNode {
 
     public void setRulesOverride(boolean _rulesOverride) {
         rulesOverride = _rulesOverride;
+        revision++;
+    }
+
+    /**
+     * Gets a counter that increases each time any value of this word is
+     * changed. Lets caches built from word values (search indexes, generated
+     * forms) detect that a word was edited in place.
+     *
+     * @return current revision of word
+     */
+    public int getRevision() {
+        return revision;
     }
 
     @Override
@@ -153,6 +177,7 @@ public class ConWord extends DictNode {
         } else {
             classTextValues.put(classId, classValue);
         }
+        revision++;
     }
 
     /**
@@ -178,6 +203,7 @@ public class ConWord extends DictNode {
             Entry<Integer, String> curEntry = classIt.next();
             if (!core.getWordClassCollection().exists(curEntry.getKey())) {
                 classTextValues.remove(curEntry.getKey());
+                revision++;
             }
         }
 
@@ -200,10 +226,16 @@ public class ConWord extends DictNode {
             throw new ClassCastException("Core must be initialized in conword to use method SetEqual");
         }
 
+        String oldValue = value;
         this.value = set.value;
+        valueChanged(oldValue);
         this.setLocalWord(set.localWord);
         this.typeId = set.typeId;
         this.definition = set.definition;
+        this.compactDefinition = set.compactDefinition;
+        if (parentCollection != null) {
+            parentCollection.definitionChanged(this);
+        }
         this.pronunciation = set.pronunciation;
         this.id = set.id;
         List<Entry<Integer, Integer>> precLock = new ArrayList<>(set.getClassValues()); // avoid read/write collisions
@@ -218,6 +250,7 @@ public class ConWord extends DictNode {
         this.autoConjugationOverride = set.autoConjugationOverride;
         this.etymNotes = set.etymNotes;
         this.rulesOverride = set.rulesOverride;
+        revision++;
     }
 
     @Override
@@ -232,7 +265,7 @@ public class ConWord extends DictNode {
             ret = value.equals(c.value);
             ret = ret && localWord.equals(c.localWord);
             ret = ret && typeId == c.typeId;
-            ret = ret && WebInterface.archiveHTML(definition, core).equals(WebInterface.archiveHTML(c.definition, core));
+            ret = ret && WebInterface.archiveHTML(getDefinition(), core).equals(WebInterface.archiveHTML(c.getDefinition(), core));
             ret = ret && pronunciation.equals(c.pronunciation);
             ret = ret && etymNotes.equals(c.etymNotes);
             ret = ret && procOverride == c.procOverride;
@@ -294,6 +327,7 @@ public class ConWord extends DictNode {
 
     public void setOverrideAutoConjugate(boolean _autoConjugationOverride) {
         autoConjugationOverride = _autoConjugationOverride;
+        revision++;
     }
 
     public boolean isProcOverride() {
@@ -302,6 +336,7 @@ public class ConWord extends DictNode {
 
     public void setProcOverride(boolean _procOverride) {
         procOverride = _procOverride;
+        revision++;
     }
 
     public String getLocalWord() {
@@ -309,12 +344,19 @@ public class ConWord extends DictNode {
     }
 
     public void setLocalWord(String _localWord) {
+        String oldLocal = localWord;
         this.localWord = _localWord.trim();
+        revision++;
+
+        if (parentCollection != null) {
+            parentCollection.localWordChanged(this, oldLocal);
+        }
     }
 
     @Override
     public void setValue(String _value) {
         super.setValue(_value.replace(PGTUtil.RTL_CHARACTER, "").replace(PGTUtil.LTR_MARKER, ""));
+        revision++;
     }
 
     /**
@@ -333,6 +375,7 @@ public class ConWord extends DictNode {
 //                core.getOSHandler().getIOHandler().writeErrorLog(e);
                 // If a type no longer exists, set the type ID to 0, then continue
                 typeId = 0;
+                revision++;
             }
         }
         return ret;
@@ -340,6 +383,7 @@ public class ConWord extends DictNode {
 
     public void setWordTypeId(int _typeId) {
         typeId = _typeId;
+        revision++;
     }
 
     public Integer getWordTypeId() {
@@ -347,11 +391,44 @@ public class ConWord extends DictNode {
     }
 
     public String getDefinition() {
-        return definition;
+        return compactDefinition == null ? definition : new String(compactDefinition, StandardCharsets.UTF_8);
     }
 
     public void setDefinition(String _definition) {
         this.definition = _definition;
+        compactDefinition = null;
+        revision++;
+
+        if (parentCollection != null) {
+            parentCollection.definitionChanged(this);
+        }
+    }
+
+    /**
+     * Stores the definition as UTF-8 bytes rather than a String if it is long
+     * enough to matter and encodes smaller than its character form (true of
+     * most HTML-heavy definitions). Decoded on each call to getDefinition(), so
+     * should only be used for words that are rarely read back. Setting the
+     * definition again returns it to String storage.
+     *
+     * @return true if definition is now held compacted
+     */
+    public boolean compactDefinition() {
+        if (compactDefinition == null && definition.length() >= PGTUtil.COMPACT_DEFINITION_MIN_LENGTH) {
+            byte[] encoded = definition.getBytes(StandardCharsets.UTF_8);
+
+            // Strings hold two bytes per character: don't "compact" into something larger
+            if (encoded.length < definition.length() * 2) {
+                compactDefinition = encoded;
+                definition = null;
+            }
+        }
+
+        return compactDefinition != null;
+    }
+
+    public boolean isDefinitionCompacted() {
+        return compactDefinition != null;
     }
 
     /**
@@ -377,6 +454,7 @@ public class ConWord extends DictNode {
 
     public void setPronunciation(String _pronunciation) {
         this.pronunciation = _pronunciation;
+        revision++;
     }
 
     /**
@@ -393,6 +471,7 @@ public class ConWord extends DictNode {
         if (valueId != -1) {
             classValues.put(classId, valueId);
         }
+        revision++;
     }
 
     /**
@@ -418,6 +497,7 @@ public class ConWord extends DictNode {
 
             if (!core.getWordClassCollection().isValid(curEntry.getKey(), curEntry.getValue())) {
                 classValues.remove(curEntry.getKey());
+                revision++;
             }
         }
 
@@ -475,6 +555,7 @@ public class ConWord extends DictNode {
      */
     public void setEtymNotes(String _etymNotes) {
         this.etymNotes = _etymNotes;
+        revision++;
     }
 
     /**
@@ -585,7 +666,7 @@ public class ConWord extends DictNode {
         }
 
         wordValue = doc.createElement(PGTUtil.WORD_DEF_XID);
-        wordValue.appendChild(doc.createTextNode(WebInterface.archiveHTML(this.definition, core)));
+        wordValue.appendChild(doc.createTextNode(WebInterface.archiveHTML(getDefinition(), core)));
         wordNode.appendChild(wordValue);
 
         wordValue = doc.createElement(PGTUtil.WORD_PROCOVERRIDE_XID);
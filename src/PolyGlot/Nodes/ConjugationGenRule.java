@@ -20,12 +20,14 @@
 package PolyGlot.Nodes;
 
 import PolyGlot.PGTUtil;
+import PolyGlot.RegexTools;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.regex.Pattern;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -43,7 +45,8 @@ public class ConjugationGenRule implements Comparable<ConjugationGenRule> {
     private List<ConjugationGenTransform> transformations = new ArrayList<>();
     private final Map<Integer, Integer> applyToClasses = new HashMap<>();
     private ConjugationGenTransform transBuffer = new ConjugationGenTransform();
-    private String debugString = "";
+    private final RegexTools.CachedPattern filterPattern = new RegexTools.CachedPattern();
+    private String errorLabel = null;
     
     /**
      * initializes new declension rule
@@ -103,6 +106,7 @@ public class ConjugationGenRule implements Comparable<ConjugationGenRule> {
             combinationId = r.combinationId;
         }
         name = r.name;
+        errorLabel = null;
         regex = r.regex;
         transformations.clear();
         r.transformations.stream().map((copyFrom) -> {
@@ -199,6 +203,7 @@ public class ConjugationGenRule implements Comparable<ConjugationGenRule> {
     
     public void setName(String _name) {
         name = _name;
+        errorLabel = null;
     }
     
     public int getTypeId() {
@@ -225,6 +230,30 @@ public class ConjugationGenRule implements Comparable<ConjugationGenRule> {
         regex = _regex;
     }
     
+    /**
+     * Gets compiled filter regex of rule, compiled only when the regex has
+     * changed since last call
+     * @return compiled regex
+     * @throws java.util.regex.PatternSyntaxException if regex is malformed
+     */
+    public Pattern getRegexPattern() {
+        return filterPattern.get(regex);
+    }
+    
+    /**
+     * @return label naming this rule in errors
+     */
+    public String getErrorLabel() {
+        String ret = errorLabel;
+        
+        if (ret == null) {
+            ret = "Conjugation rule \"" + name + "\"";
+            errorLabel = ret;
+        }
+        
+        return ret;
+    }
+    
     @Override
     public String toString() {
         return name;
@@ -291,18 +320,61 @@ public class ConjugationGenRule implements Comparable<ConjugationGenRule> {
      * @return true if rule should be applied to word
      */
     public boolean doesRuleApplyToWord(ConWord word) {
+        return doesRuleApplyToWord(word, null);
+    }
+    
+    /**
+     * Tests whether a word should have this rule applied to it, optionally
+     * explaining the result. Safe to call from several threads at once.
+     * @param word word to test rule for
+     * @param trace if not null, a human readable account of the test is
+     * appended to it
+     * @return true if rule should be applied to word
+     */
+    public boolean doesRuleApplyToWord(ConWord word, StringBuilder trace) {
+        boolean ret = doesRuleApplyToWordClasses(word, trace);
+        
+        // test word against regex
+        if (ret && RegexTools.guardedMatcher(getRegexPattern(), word.getValue(), getErrorLabel()).matches()) {
+            if (trace != null) {
+                trace.append("    value: ").append(word.getValue()).append(" matches regex: \"").append(regex)
+                        .append("\". Rule will be applied.\n");
+            }
+        } else if (ret) {
+            if (trace != null) {
+                trace.append("    value: ").append(word.getValue()).append(" does not match regex: \"").append(regex)
+                        .append("\". Rule will not be applied.\n");
+            }
+            
+            ret = false;
+        }
+        
+        return ret;
+    }
+    
+    /**
+     * Tests only the part of speech and class filters of this rule against a
+     * word, skipping the regex
+     * @param word word to test rule for
+     * @param trace if not null, a human readable account of the test is
+     * appended to it
+     * @return true if word passes part of speech and class filters
+     */
+    public boolean doesRuleApplyToWordClasses(ConWord word, StringBuilder trace) {
         if (word.getCore() == null) {
             throw new NullPointerException("Words without populated dictionary cores cannot be tested.");
         }
         
         boolean ret = false;
-        boolean wordTypeHasClasses = word.getCore().getWordClassCollection().getClassesForType(word.getWordTypeId()).length != 0;
         int wordTypeId = word.getWordTypeId();
         
-        debugString = "Rule: " + name + "\n";
+        if (trace != null) {
+            trace.append("Rule: ").append(name).append("\n");
+        }
         
         // if -1 present in this rule, apply to all. Otherwise test against word classes. Skips mismatching PoS
-        if (typeId == wordTypeId && (!wordTypeHasClasses || applyToClasses.containsKey(-1))) {
+        if (typeId == wordTypeId && (applyToClasses.containsKey(-1)
+                || word.getCore().getWordClassCollection().getClassesForType(wordTypeId).length == 0)) {
             ret = true;
         } else if (typeId == wordTypeId) {
             ret = true;
@@ -312,24 +384,19 @@ public class ConjugationGenRule implements Comparable<ConjugationGenRule> {
                 int classId = curEntry.getKey();
                 
                 if (!word.wordHasClassValue(classId, curEntry.getValue())) {
-                    debugString += "    Word's class does not match filter values for rule. Rule will not be applied.\n";
+                    if (trace != null) {
+                        trace.append("    Word's class does not match filter values for rule. Rule will not be applied.\n");
+                    }
+                    
                     ret = false;
                     break;
                 }
             }
-        } else {
-            debugString += "    Rule PoS " 
-                    + word.getCore().getTypes().getNodeById(typeId).getValue()
-                    + " does not match word PoS "
-                    + word.getCore().getTypes().getNodeById(wordTypeId).getValue() + "\n";
-        }
-        
-        // test word against regex
-        if (ret && word.getValue().matches(regex)) {
-            debugString += "    value: " + word.getValue() + " matches regex: \"" + regex + "\". Rule will be applied.\n";
-        } else if (ret) {
-            debugString += "    value: " + word.getValue() + " does not match regex: \"" + regex + "\". Rule will not be applied.\n";
-            ret = false;
+        } else if (trace != null) {
+            trace.append("    Rule PoS ")
+                    .append(word.getCore().getTypes().getNodeById(typeId).getValue())
+                    .append(" does not match word PoS ")
+                    .append(word.getCore().getTypes().getNodeById(wordTypeId).getValue()).append("\n");
         }
         
         return ret;
@@ -424,14 +491,6 @@ public class ConjugationGenRule implements Comparable<ConjugationGenRule> {
         ruleNode.appendChild(applyToClassesEntry);
     }
 
-    /**
-     * Fetches the debug string, which includes human readable information regarding latest word transformations
-     * @return 
-     */
-    public String getDebugString() {
-        return debugString;
-    }
-    
     @Override
     public boolean equals(Object comp) {
         boolean ret = false;
@@ -20,7 +20,9 @@
 package PolyGlot.Nodes;
 
 import PolyGlot.PGTUtil;
+import PolyGlot.RegexTools;
 import java.util.Objects;
+import java.util.regex.Pattern;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -31,6 +33,7 @@ import org.w3c.dom.Element;
 public final class ConjugationGenTransform {
     public String regex;
     public String replaceText;
+    private final RegexTools.CachedPattern pattern = new RegexTools.CachedPattern();
     
     public ConjugationGenTransform(String _regex, String _replaceText) {
         regex = _regex;
@@ -55,6 +58,16 @@ public final class ConjugationGenTransform {
         replaceText = d.replaceText;
     }
 
+    /**
+     * Gets compiled regex of transform, compiled only when regex has changed
+     * since last call
+     * @return compiled regex
+     * @throws java.util.regex.PatternSyntaxException if regex is malformed
+     */
+    public Pattern getPattern() {
+        return pattern.get(regex);
+    }
+
     @Override
     public int hashCode() {
         int hash = 7;
@@ -38,6 +38,7 @@ import org.w3c.dom.Element;
  */
 public class ConjugationNode extends DictNode {
     private ConjugationManager manager;
+    private Integer wordId = null; // word this is stored against (null for templates and buffers)
     private String notes = "";
     private String combinedDimId = "";
     private boolean dimensionless = false;
@@ -111,6 +112,9 @@ public class ConjugationNode extends DictNode {
                 dim.setValue("SINGLETON-DIMENSION");
                 addDimension(dim);
             }
+
+            // dimensionless declensions take their ID as combined ID
+            combinedIdChanged();
         }
     }
     
@@ -182,6 +186,22 @@ public class ConjugationNode extends DictNode {
     
     public void setCombinedDimId(String _id) {
         combinedDimId = _id;
+        combinedIdChanged();
+    }
+    
+    /**
+     * Records the word this declension is stored against, so that its manager
+     * is told when the combined ID changes in place
+     * @param _wordId ID of word
+     */
+    public void setWordId(Integer _wordId) {
+        wordId = _wordId;
+    }
+    
+    private void combinedIdChanged() {
+        if (manager != null && wordId != null) {
+            manager.wordConjugationIdChanged(wordId);
+        }
     }
     
     /**
@@ -272,7 +292,7 @@ public class ConjugationNode extends DictNode {
         
         this.setNotes(node.notes);
         this.setValue(node.getValue());
-        this.combinedDimId = node.getCombinedDimId();
+        this.setCombinedDimId(node.getCombinedDimId());
         this.setDimensionless(node.dimensionless);
 
         node.dimensions.entrySet().forEach((entry) -> {
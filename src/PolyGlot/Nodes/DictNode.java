@@ -78,7 +78,20 @@ public abstract class DictNode implements Comparable<DictNode> {
     }
 
     public void setValue(String conWord) {
+        String oldValue = value;
         this.value = conWord.trim();
+        valueChanged(oldValue);
+    }
+    
+    /**
+     * Informs parent collection of a change in value. Must be called by any
+     * subclass which assigns value directly.
+     * @param oldValue value prior to change
+     */
+    protected void valueChanged(String oldValue) {
+        if (parent != null) {
+            parent.nodeValueChanged(this, oldValue);
+        }
     }
 
     /**
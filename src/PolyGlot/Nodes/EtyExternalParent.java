@@ -55,7 +55,7 @@ public class EtyExternalParent extends ConWord {
     public void setEqual(DictNode _node) throws ClassCastException {
         if (_node instanceof EtyExternalParent) {
             EtyExternalParent node = (EtyExternalParent)_node;
-            definition = node.definition;
+            setDefinition(node.getDefinition());
             externalLanguage = node.externalLanguage;
             value = node.value;
         } else if (_node != null) {
@@ -76,7 +76,7 @@ public class EtyExternalParent extends ConWord {
             EtyExternalParent c = (EtyExternalParent)comp;
             ret = value.equals(c.value);
             ret = ret && externalLanguage.equals(c.externalLanguage);
-            ret = ret && definition.equals(c.definition);
+            ret = ret && getDefinition().equals(c.getDefinition());
         }
         
         return ret;
@@ -89,7 +89,9 @@ public class PhraseNode extends DictNode {
     }
 
     public void setGloss(String gloss) {
+        String oldValue = value;
         this.value = gloss;
+        valueChanged(oldValue);
     }
     
     /**
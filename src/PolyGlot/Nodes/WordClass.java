@@ -62,7 +62,9 @@ public class WordClass extends DictNode {
         }
         WordClass copyProp = (WordClass)_node;
         
+        String oldValue = value;
         this.value = copyProp.getValue();
+        valueChanged(oldValue);
         this.values.clear();
         this.values.putAll(copyProp.values);
         this.applyTypes.clear();
@@ -22,8 +22,9 @@ package PolyGlot;
 import PolyGlot.CustomControls.GrammarChapNode;
 import PolyGlot.CustomControls.GrammarSectionNode;
 import PolyGlot.CustomControls.PPanelDrawEtymology;
+import PolyGlot.ManagersCollections.Paradigms;
+import PolyGlot.ManagersCollections.PronunciationBatch;
 import PolyGlot.Nodes.ConWord;
-import PolyGlot.Nodes.ConjugationNode;
 import PolyGlot.Nodes.ConjugationPair;
 import PolyGlot.Nodes.ImageNode;
 import PolyGlot.Nodes.PEntry;
@@ -133,6 +134,9 @@ public class PExportToPDF {
     private String conFontLocation = "";
     private String localFontLocation = "";
     private int[] chapOrder;
+    private PronunciationBatch wordProcs;
+    private PronunciationBatch wordRoms;
+    private Paradigms wordParadigms;
 
     /**
      * Exports language to presentable PDF
@@ -209,6 +213,21 @@ public class PExportToPDF {
             }
         }
 
+        // pronunciations and romanizations of all words are generated up front in one parallel pass
+        if (printConLocal || printLocalCon) {
+            ConWord[] words = core.getWordCollection().getWordNodes();
+            wordProcs = core.getWordCollection().getPronunciationBatch(words);
+
+            if (core.getRomManager().isEnabled()) {
+                wordRoms = core.getRomManager().getPronunciationBatch(words);
+            }
+            
+            if (printAllConjugations) {
+                // a one-off pass: forms generated for it are not cached
+                wordParadigms = core.getWordCollection().getParadigms(words, false);
+            }
+        }
+
         // set up page numbers on document
         if (printPageNumber) {
             template = new PdfFormXObject(new Rectangle(pageNumberX, pageNumberY, 30, 30));
@@ -507,33 +526,23 @@ public class PExportToPDF {
                 dictEntry.add(varChunk.setFontSize(defFontSize));
             }
 
-            try {
-                if (curWord.getPronunciation().length() != 0) {
-                    varChunk = new Text("/" + curWord.getPronunciation() + "/");
-                    varChunk.setFont(localFont);
-                    varChunk.setFontSize(defFontSize);
-                    dictEntry.add(varChunk);
-                    varChunk = new Text(" - ");
-                    varChunk.setFont(timesBold);
-                    dictEntry.add(varChunk.setFontSize(defFontSize));
-                }
-            } catch (Exception e) {
-                // do nothing. On Print, simply continue without printing this
-                // word's pronunciation.
-                // IOHandler.writeErrorLog(e);
+            // on error, simply continue without printing this word's pronunciation
+            String procStr = wordProcs.getValueById(curWord.getId(), "");
+            if (procStr.length() != 0) {
+                varChunk = new Text("/" + procStr + "/");
+                varChunk.setFont(localFont);
+                varChunk.setFontSize(defFontSize);
+                dictEntry.add(varChunk);
+                varChunk = new Text(" - ");
+                varChunk.setFont(timesBold);
+                dictEntry.add(varChunk.setFontSize(defFontSize));
             }
 
             addWordClassValues(curWord, dictEntry);
 
             // write romanization value for word if active and word has one
             if (core.getRomManager().isEnabled()) {
-                String romStr;
-
-                try {
-                    romStr = core.getRomManager().getPronunciation(curWord.getValue());
-                } catch (Exception e) {
-                    romStr = "<ERROR>";
-                }
+                String romStr = wordRoms.getValueById(curWord.getId(), "<ERROR>");
 
                 if (!romStr.isEmpty()) {
                     dictEntry.add(new Text("\nRoman: ").setFont(unicodeFont));
@@ -749,33 +758,23 @@ public class PExportToPDF {
                 dictEntry.add(varChunk.setFontSize(defFontSize));
             }
 
-            try {
-                if (curWord.getPronunciation().length() != 0) {
-                    varChunk = new Text("/" + curWord.getPronunciation() + "/");
-                    varChunk.setFont(localFont);
-                    varChunk.setFontSize(defFontSize);
-                    dictEntry.add(varChunk);
-                    varChunk = new Text(" - ");
-                    varChunk.setFont(timesBold);
-                    dictEntry.add(varChunk.setFontSize(defFontSize));
-                }
-            } catch (Exception e) {
-                // do nothing. On Print, simply continue without printing this
-                // word's pronunciation.
-                // IOHandler.writeErrorLog(e);
+            // on error, simply continue without printing this word's pronunciation
+            String procStr = wordProcs.getValueById(curWord.getId(), "");
+            if (procStr.length() != 0) {
+                varChunk = new Text("/" + procStr + "/");
+                varChunk.setFont(localFont);
+                varChunk.setFontSize(defFontSize);
+                dictEntry.add(varChunk);
+                varChunk = new Text(" - ");
+                varChunk.setFont(timesBold);
+                dictEntry.add(varChunk.setFontSize(defFontSize));
             }
 
             this.addWordClassValues(curWord, dictEntry);
 
             // write romanization value for word if active and word has one
             if (core.getRomManager().isEnabled()) {
-                String romStr;
-
-                try {
-                    romStr = core.getRomManager().getPronunciation(curWord.getValue());
-                } catch (Exception e) {
-                    romStr = "<ERROR>";
-                }
+                String romStr = wordRoms.getValueById(curWord.getId(), "<ERROR>");
 
                 if (!romStr.isEmpty()) {
                     dictEntry.add(new Text("\nRoman: ").setFont(unicodeFont));
@@ -877,12 +876,13 @@ public class PExportToPDF {
         Text varChunk;
 
         if (printAllConjugations) {
-            for (ConjugationPair curPair : core.getConjugationManager().getAllCombinedIds(curWord.getWordTypeId())) {
-                ConjugationNode curDeclension
-                        = core.getConjugationManager().getConjugationByCombinedId(
-                                curWord.getId(), curPair.combinedId);
+            Paradigms.Table paradigm = wordParadigms.getWordTable(curWord.getId());
+            int row = paradigm.getRow(curWord.getId());
+            
+            for (int col = 0; col < paradigm.getColumnCount(); col++) {
+                ConjugationPair curPair = paradigm.getCombinedId(col);
 
-                if (core.getConjugationManager().isCombinedConjlSurpressed(curPair.combinedId, curWord.getWordTypeId())) {
+                if (paradigm.isSuppressed(col)) {
                     continue;
                 }
 
@@ -895,15 +895,13 @@ public class PExportToPDF {
                 String declensionValue = "";
 
                 // if set value exists, use this
-                if (curDeclension != null) {
-                    declensionValue = curDeclension.getValue();
-                } else { // otherwise generate a value
-                    try {
-                        declensionValue = core.getConjugationManager().declineWord(curWord, curPair.combinedId);
-                    } catch (Exception e) {
-                        log += "Problem generating " + curPair.label
-                                + " due to bad regex. Please check regex for word form.";
-                    }
+                if (paradigm.getStored(row, col) != null) {
+                    declensionValue = paradigm.getStored(row, col);
+                } else if (paradigm.getGenerated(row, col) != null) { // otherwise use generated value
+                    declensionValue = paradigm.getGenerated(row, col);
+                } else {
+                    log += "Problem generating " + curPair.label
+                            + " due to bad regex. Please check regex for word form.";
                 }
 
                 varChunk = new Text(declensionValue);
@@ -917,6 +915,7 @@ public class PExportToPDF {
     private Div buildPhrases(String anchorPoint) throws IOException {
         Div ret = new Div();
         ret.setProperty(Property.DESTINATION, anchorPoint);
+        PronunciationBatch phraseProcs = core.getPhraseManager().getPronunciationBatch();
 
         for (PhraseNode node : core.getPhraseManager().getAllValues()) {
             Paragraph phraseBlock = new Paragraph();
@@ -938,10 +937,11 @@ public class PExportToPDF {
                     .setFontSize(conFontSize));
 
             // pronunciation
-            if (!node.getPronunciation().isEmpty()) {
+            String procStr = phraseProcs.getValueById(node.getId(), "");
+            if (!procStr.isEmpty()) {
                 phraseBlock.add(new Text("\n").setFont(unicodeFont).setFontSize(2));
                 phraseBlock.add(new Text("Pronunciation: "
-                        + node.getPronunciation()).setFont(localFont).setFontSize(12));
+                        + procStr).setFont(localFont).setFontSize(12));
             }
 
             // notes
@@ -359,6 +359,12 @@ public class PGTUtil {
     public static final int MAX_LOG_CHARACTERS = 25000;
     public static final int PLABEL_MIN_FONT_SIZE = 3;
     public static final int PLABEL_MAX_FONT_SIZE = 240;
+    public static final int COMPACT_DEFINITION_MIN_LENGTH = 256; // definitions shorter than this are never compacted
+    public static final int PRONUNCIATION_CACHE_SIZE = 20000; // default entries cached per pronunciation/romanization manager
+    public static final long REGEX_MATCH_TIME_LIMIT = 5000; // default milliseconds a user supplied regex may run on one value (0 = unlimited)
+    public static final int EXCEL_STREAM_ROW_WINDOW = 100; // rows per sheet held in memory when streaming xlsx exports
+    public static final int EXCEL_STREAM_WORD_BLOCK = 1000; // words whose forms are generated at a time when streaming xlsx exports
+    public static final String EXCEL_STREAM_EXTENSION = ".xlsx"; // exports to files of this type are streamed
 
     // visual style constants
     public static final int CHECKBOX_ROUNDING = 3;
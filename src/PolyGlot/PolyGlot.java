@@ -22,6 +22,7 @@ package PolyGlot;
 import java.awt.FontFormatException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.Arrays;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 
@@ -36,10 +37,14 @@ public class PolyGlot {
     private static final String PDFCOMMAND = "pdf-export";
     private static final String EXCELTOCVSCOMMAND = "excel-to-cvs";
     private static final String EXPORTTOEXCELCOMMAND = "export-to-excel";
+    private static final String COMPACTDEFSOPTION = "--compact-definitions";
+    private static final String COMPACTDEFSUSAGE = "\n(precede the command with " + COMPACTDEFSOPTION + " to hold long definitions compacted in memory)";
     private static final String EXCELTOCVSUSAGE = "PolyGlot_J8_Bridge " + EXCELTOCVSCOMMAND + " <EXCEL-FILE> <TARGET-WRITE> <SHEET-NUMBER>";
-    private static final String EXPORTTOEXCELUSAGE = "PolyGlot_J8_Bridge " + EXPORTTOEXCELCOMMAND + " <POLYGLOT-ARCHIVE> <TARGET-WRITE> <T/F SEPARATE DECLENSIONS>";
+    private static final String EXPORTTOEXCELUSAGE = "PolyGlot_J8_Bridge " + EXPORTTOEXCELCOMMAND + " <POLYGLOT-ARCHIVE> <TARGET-WRITE> <T/F SEPARATE DECLENSIONS>"
+            + "\n(a TARGET-WRITE ending in " + PGTUtil.EXCEL_STREAM_EXTENSION + " is streamed as xlsx, others are written as xls)" + COMPACTDEFSUSAGE;
     private static final String PDFEXPORTUSAGE = "Consult internal documentation.";
     private static final String SUCCESS = "SUCCESS";
+    private static boolean compactDefinitions = false;
 
     public static void main(final String[] args) {
         String consoleOut;
@@ -49,21 +54,25 @@ public class PolyGlot {
             args[i] = args[i].trim();
         }
         
-        if (args.length == 0) {
+        // optional leading switch: hold long definitions compacted while exporting large lexicons
+        compactDefinitions = args.length > 0 && args[0].equals(COMPACTDEFSOPTION);
+        String[] command = compactDefinitions ? Arrays.copyOfRange(args, 1, args.length) : args;
+        
+        if (command.length == 0) {
             Screens.ScrPrintToPDF.run();
-        } else if (args.length > 0) {
-            switch (args[0]) {
+        } else if (command.length > 0) {
+            switch (command[0]) {
                 case PDFCOMMAND:
-                    consoleOut = pdfExport(args);
+                    consoleOut = pdfExport(command);
                     break;
                 case EXCELTOCVSCOMMAND:
-                    consoleOut = excelToCvs(args);
+                    consoleOut = excelToCvs(command);
                     break;
                 case EXPORTTOEXCELCOMMAND:
-                    consoleOut = exportToExcel(args);
+                    consoleOut = exportToExcel(command);
                     break;
                 default:
-                    consoleOut = "ERROR: Unrecognized command: " + args[0];
+                    consoleOut = "ERROR: Unrecognized command: " + command[0];
             }
 
             System.out.println(consoleOut);
@@ -82,6 +91,7 @@ public class PolyGlot {
             
             try {
                 DictCore core = new DictCore();
+                core.getWordCollection().setCompactDefinitions(compactDefinitions);
                 core.readFile(readFrom);
 
                 try {
@@ -133,6 +143,7 @@ public class PolyGlot {
 
             try {
                 DictCore core = new DictCore();
+                core.getWordCollection().setCompactDefinitions(compactDefinitions);
                 core.readFile(exportFrom);
 
                 try {
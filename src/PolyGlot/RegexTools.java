@@ -19,6 +19,7 @@
  */
 package PolyGlot;
 
+import PolyGlot.Exceptions.RegexTimeoutException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -30,15 +31,70 @@ import java.util.regex.PatternSyntaxException;
  * @author draque
  */
 public class RegexTools {
+    // characters read by the regex engine between checks of the clock
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    private static volatile long matchTimeLimit = PGTUtil.REGEX_MATCH_TIME_LIMIT;
+
+    /**
+     * Sets how long a guarded regex may run against a single value before it
+     * is stopped
+     * @param millis time limit in milliseconds. 0 or less disables the limit
+     */
+    public static void setMatchTimeLimit(long millis) {
+        matchTimeLimit = millis;
+    }
+
+    public static long getMatchTimeLimit() {
+        return matchTimeLimit;
+    }
+
+    /**
+     * Creates a matcher which throws RegexTimeoutException if the pattern
+     * runs against text for longer than the match time limit (for example
+     * due to catastrophic backtracking). Use for user supplied patterns.
+     * @param pattern pattern to match with
+     * @param text text to match against
+     * @param label names the rule or pattern in the error raised on timeout
+     * @return guarded matcher
+     */
+    public static Matcher guardedMatcher(Pattern pattern, CharSequence text, String label) {
+        long limit = matchTimeLimit;
+
+        return limit > 0 ? pattern.matcher(new GuardedSequence(text, limit, label)) : pattern.matcher(text);
+    }
+
+    /**
+     * Guarded equivalent of value.matches(regex)
+     * @param value value to test
+     * @param regex user supplied regex
+     * @param label names the rule or pattern in the error raised on timeout
+     * @return true if the whole value matches
+     */
+    public static boolean guardedMatches(String value, String regex, String label) {
+        return guardedMatcher(Pattern.compile(regex), value, label).matches();
+    }
+
+    /**
+     * Guarded equivalent of value.replaceAll(regex, replacement)
+     * @param value value to replace within
+     * @param regex user supplied regex
+     * @param replacement replacement text
+     * @param label names the rule or pattern in the error raised on timeout
+     * @return value with replacements made
+     */
+    public static String guardedReplaceAll(String value, String regex, String replacement, String label) {
+        return guardedMatcher(Pattern.compile(regex), value, label).replaceAll(replacement);
+    }
 
     public static String advancedReplace(String value,
             String regex,
             String replacement,
             ReplaceOptions instanceOption) throws Exception {
         String newVal = "";
+        String label = "Replacement pattern \"" + regex + "\"";
 
         if (instanceOption == ReplaceOptions.All) {
-            newVal = value.replaceAll(regex, replacement);
+            newVal = guardedReplaceAll(value, regex, replacement, label);
         } else {
             List<String> segments = new ArrayList<>();
 
@@ -48,7 +104,7 @@ public class RegexTools {
 
             // break string into segments
             Pattern p = Pattern.compile(regex);
-            Matcher m = p.matcher(value);
+            Matcher m = guardedMatcher(p, value, label);
 
             int lastIndexMatch = 0;
 
@@ -79,7 +135,7 @@ public class RegexTools {
                         || instanceOption == ReplaceOptions.MiddleInstancesOnly)
                         || isLast && (instanceOption == ReplaceOptions.MiddleAndLastInsances
                         || instanceOption == ReplaceOptions.LastInsanceOnly)) {
-                    newVal += segments.get(i).replaceAll(regex, replacement);
+                    newVal += guardedReplaceAll(segments.get(i), regex, replacement, label);
                 } else {
                     newVal += segments.get(i);
                 }
@@ -89,6 +145,81 @@ public class RegexTools {
         return newVal;
     }
 
+    /**
+     * Compiled form of a regex which may be changed at any time. The regex is
+     * recompiled only when it differs from the one last compiled, so holders
+     * whose regex is freely assignable can still skip compilation on each
+     * use. Safe to share between threads.
+     */
+    public static final class CachedPattern {
+        private volatile Pattern pattern = null;
+
+        /**
+         * Gets compiled pattern of regex
+         * @param regex current regex
+         * @return compiled regex
+         * @throws PatternSyntaxException if regex is malformed
+         */
+        public Pattern get(String regex) {
+            Pattern ret = pattern;
+
+            if (ret == null || !ret.pattern().equals(regex)) {
+                ret = Pattern.compile(regex);
+                pattern = ret;
+            }
+
+            return ret;
+        }
+    }
+
+    /**
+     * Text handed to the regex engine which checks the clock as it is read,
+     * stopping matches which run past their deadline
+     */
+    private static final class GuardedSequence implements CharSequence {
+        private final CharSequence text;
+        private final long limit;
+        private final long deadline;
+        private final String label;
+        private int reads = 0;
+
+        GuardedSequence(CharSequence _text, long _limit, String _label) {
+            text = _text;
+            limit = _limit;
+            deadline = System.nanoTime() + _limit * 1000000L;
+            label = _label;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads >= TIME_CHECK_INTERVAL) {
+                reads = 0;
+
+                if (System.nanoTime() - deadline > 0) {
+                    throw new RegexTimeoutException(label + " ran longer than the " + limit
+                            + "ms regex time limit and was stopped. Please simplify its pattern.");
+                }
+            }
+
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
     /**
      * FirstInstanceOnly: LastInsanceOnly: MiddleInstancesOnly:
      */
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2021, Draque Thompson, draquemail@gmail.com
+ * All rights reserved.
+ *
+ * Licensed under: MIT License
+ * See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canonicalizes repeated string values while a file is loading, so that
+ * identical values (part of speech names, class values, glosses, etc.) share a
+ * single instance rather than one per word. Scoped to a single load: unlike
+ * String.intern(), nothing is retained once the handler is discarded.
+ *
+ * @author draque
+ */
+public class StringPool {
+    private final Map<String, String> pool = new HashMap<>();
+
+    /**
+     * Returns the pooled instance equal to the given value, pooling the value
+     * itself if it is not yet present
+     * @param value value to canonicalize
+     * @return shared instance equal to value (null if value is null)
+     */
+    public String get(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        String ret = pool.putIfAbsent(value, value);
+
+        return ret == null ? value : ret;
+    }
+
+    /**
+     * @return number of distinct values currently pooled
+     */
+    public int size() {
+        return pool.size();
+    }
+
+    public void clear() {
+        pool.clear();
+    }
+}
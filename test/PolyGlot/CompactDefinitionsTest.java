@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.Nodes.ConWord;
+import java.io.File;
+import java.io.StringWriter;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that words loaded with compacted definitions read back, compare and
+ * save exactly as words loaded normally.
+ *
+ * @author draque
+ */
+public class CompactDefinitionsTest {
+    private final DictCore core;
+    private final DictCore compactCore;
+    private final String sourceFile;
+
+    public CompactDefinitionsTest() throws Exception {
+        sourceFile = "test" + File.separator + "TestResources" + File.separator + "Lodenkur_TEST.pgd";
+        core = new DictCore();
+        core.readFile(sourceFile);
+        compactCore = new DictCore();
+        compactCore.getWordCollection().setCompactDefinitions(true);
+        compactCore.readFile(sourceFile);
+    }
+
+    @Test
+    public void testCompactedWordsRoundTrip() throws Exception {
+        int compacted = 0;
+
+        for (ConWord word : core.getWordCollection().getWordNodes()) {
+            ConWord compactWord = compactCore.getWordCollection().getNodeById(word.getId());
+
+            assertFalse(word.isDefinitionCompacted());
+            if (compactWord.isDefinitionCompacted()) {
+                compacted++;
+            }
+
+            // image links differ between loads, so definitions are compared in archived form
+            assertEquals(WebInterface.archiveHTML(word.getDefinition(), core),
+                    WebInterface.archiveHTML(compactWord.getDefinition(), compactCore));
+            assertTrue(word.equals(compactWord));
+            assertTrue(compactWord.equals(word));
+            assertEquals(writeWord(word), writeWord(compactWord));
+        }
+
+        // the test lexicon has definitions long enough to be compacted
+        assertTrue(compacted > 0);
+    }
+
+    @Test
+    public void testSetDefinitionUncompacts() throws Exception {
+        for (ConWord word : compactCore.getWordCollection().getWordNodes()) {
+            if (word.isDefinitionCompacted()) {
+                String definition = word.getDefinition();
+
+                word.setDefinition(definition + "ZOT");
+                assertFalse(word.isDefinitionCompacted());
+                assertEquals(definition + "ZOT", word.getDefinition());
+                assertTrue(word.compactDefinition());
+                assertEquals(definition + "ZOT", word.getDefinition());
+            }
+        }
+    }
+
+    private String writeWord(ConWord word) throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        word.writeXML(doc, root);
+
+        StringWriter ret = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(doc), new StreamResult(ret));
+
+        return ret.toString();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.ManagersCollections.ConjugationManager;
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.ConjugationNode;
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks lookup of stored declensions by combined ID against a linear scan of
+ * the word's declensions after each way they can be edited.
+ *
+ * @author draque
+ */
+public class ConjugationIndexTest {
+    private final DictCore core;
+    private final ConjugationManager conjMan;
+    private final ConWord word;
+
+    public ConjugationIndexTest() throws Exception {
+        core = new DictCore();
+        core.readFile("test" + File.separator + "TestResources" + File.separator + "Lodenkur_TEST.pgd");
+        conjMan = core.getConjugationManager();
+        word = core.getWordCollection().getWordNodes()[0];
+    }
+
+    @Test
+    public void testLoadedLexicon() {
+        for (ConWord curWord : core.getWordCollection().getWordNodes()) {
+            assertIndexed(curWord.getId());
+        }
+    }
+
+    @Test
+    public void testWordMutators() {
+        int wordId = word.getId();
+        assertIndexed(wordId, ",1,2,", ",3,4,");
+
+        conjMan.addConjugationToWord(wordId, -1, getDeclension(",1,2,", "first"));
+        assertIndexed(wordId, ",1,2,", ",3,4,");
+        assertEquals("first", conjMan.getConjugationByCombinedId(wordId, ",1,2,").getValue());
+
+        // where combined IDs are duplicated the first stored wins
+        conjMan.addConjugationToWord(wordId, -1, getDeclension(",1,2,", "second"));
+        conjMan.addConjugationToWord(wordId, -1, getDeclension(",3,4,", "third"));
+        assertIndexed(wordId, ",1,2,", ",3,4,");
+        assertEquals("first", conjMan.getConjugationByCombinedId(wordId, ",1,2,").getValue());
+
+        ConjugationNode first = getStored(wordId, "first");
+        ConjugationNode third = getStored(wordId, "third");
+
+        // re-adding under an existing declension ID replaces it
+        conjMan.addConjugationToWord(wordId, third.getId(), getDeclension(",5,6,", "replaced"));
+        assertIndexed(wordId, ",3,4,", ",5,6,");
+        assertNull(conjMan.getConjugationByCombinedId(wordId, ",3,4,"));
+
+        conjMan.deleteConjugationFromWord(wordId, first.getId());
+        assertIndexed(wordId, ",1,2,");
+        assertEquals("second", conjMan.getConjugationByCombinedId(wordId, ",1,2,").getValue());
+
+        conjMan.removeConjugationValues(wordId, Arrays.asList(getStored(wordId, "second")));
+        assertIndexed(wordId, ",1,2,");
+        assertNull(conjMan.getConjugationByCombinedId(wordId, ",1,2,"));
+
+        conjMan.clearAllConjugationsWord(wordId);
+        assertIndexed(wordId, ",1,2,", ",5,6,");
+        assertNull(conjMan.getConjugationByCombinedId(wordId, ",5,6,"));
+        assertEquals(0, conjMan.getFullConjugationListWord(wordId).length);
+    }
+
+    @Test
+    public void testIdsChangedInPlace() {
+        int wordId = word.getId();
+
+        conjMan.addConjugationToWord(wordId, -1, getDeclension(",1,2,", "first"));
+        conjMan.addConjugationToWord(wordId, -1, getDeclension(",1,2,", "second"));
+        assertIndexed(wordId, ",1,2,");
+
+        ConjugationNode first = getStored(wordId, "first");
+        first.setCombinedDimId(",7,8,");
+        assertIndexed(wordId, ",1,2,", ",7,8,");
+        assertEquals("second", conjMan.getConjugationByCombinedId(wordId, ",1,2,").getValue());
+        assertSame(first, conjMan.getConjugationByCombinedId(wordId, ",7,8,"));
+
+        // deprecated forms are stored under their combined ID marked with D
+        first.setCombinedDimId("D,7,8,");
+        assertIndexed(wordId, ",7,8,", "D,7,8,");
+        assertSame(first, conjMan.getConjugationByCombinedId(wordId, "D,7,8,"));
+
+        // dimensionless declensions are found by their own ID
+        String firstId = first.getId().toString();
+        first.setDimensionless(true);
+        assertIndexed(wordId, "D,7,8,", firstId);
+        assertSame(first, conjMan.getConjugationByCombinedId(wordId, firstId));
+
+        first.setDimensionless(false);
+        assertIndexed(wordId, "D,7,8,", firstId);
+        assertNull(conjMan.getConjugationByCombinedId(wordId, firstId));
+
+        // declensions not stored against a word do not disturb the index
+        ConjugationNode unstored = getDeclension(",1,2,", "unstored");
+        unstored.setCombinedDimId(",9,9,");
+        conjMan.getBuffer().setCombinedDimId(",1,2,");
+        assertIndexed(wordId, ",1,2,", ",9,9,");
+    }
+
+    @Test
+    public void testDeprecateAll() {
+        int wordId = word.getId();
+
+        conjMan.addConjugationToWord(wordId, -1, getDeclension(",1,2,", "first"));
+        assertIndexed(wordId, ",1,2,", "D,1,2,");
+
+        conjMan.deprecateAllConjugations(word.getWordTypeId());
+        assertIndexed(wordId, ",1,2,", "D,1,2,");
+        assertNull(conjMan.getConjugationByCombinedId(wordId, ",1,2,"));
+        assertEquals("first", conjMan.getConjugationByCombinedId(wordId, "D,1,2,").getValue());
+    }
+
+    private ConjugationNode getDeclension(String combinedId, String value) {
+        ConjugationNode ret = new ConjugationNode(-1, conjMan);
+        ret.setCombinedDimId(combinedId);
+        ret.setValue(value);
+
+        return ret;
+    }
+
+    private ConjugationNode getStored(int wordId, String value) {
+        for (ConjugationNode node : conjMan.getFullConjugationListWord(wordId)) {
+            if (node.getValue().equals(value)) {
+                return node;
+            }
+        }
+
+        throw new AssertionError("no stored declension " + value);
+    }
+
+    /**
+     * Asserts lookup by combined ID finds what a linear scan of the word's
+     * declensions finds, for every stored ID plus those given
+     */
+    private void assertIndexed(int wordId, String... extraIds) {
+        Set<String> ids = new LinkedHashSet<>(Arrays.asList(extraIds));
+
+        for (ConjugationNode node : conjMan.getFullConjugationListWord(wordId)) {
+            ids.add(node.getCombinedDimId());
+        }
+
+        for (String id : ids) {
+            assertSame(id, scan(wordId, id), conjMan.getConjugationByCombinedId(wordId, id));
+        }
+    }
+
+    private ConjugationNode scan(int wordId, String combinedId) {
+        for (ConjugationNode node : conjMan.getFullConjugationListWord(wordId)) {
+            if (combinedId.equals(node.getCombinedDimId())) {
+                return node;
+            }
+        }
+
+        return null;
+    }
+}
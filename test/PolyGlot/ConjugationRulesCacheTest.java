@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.ManagersCollections.ConjugationManager;
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.ConjugationDimension;
+import PolyGlot.Nodes.ConjugationGenRule;
+import PolyGlot.Nodes.ConjugationGenTransform;
+import PolyGlot.Nodes.ConjugationNode;
+import PolyGlot.Nodes.ConjugationPair;
+import java.io.File;
+import java.util.Arrays;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that sorted rules and combined IDs cached by the conjugation manager
+ * follow each change to rules and templates: every form declined after a
+ * change must match a freshly loaded core given the same change.
+ *
+ * @author draque
+ */
+public class ConjugationRulesCacheTest {
+    // parts of speech of the test lexicon with conjugation templates and rules
+    private static final int[] TYPE_IDS = {3, 4};
+    private static final int TYPE_ID = 4;
+    private static final String COMBINED_ID = ",2,2,2,";
+    private final DictCore core;
+    private final String initial;
+
+    public ConjugationRulesCacheTest() throws Exception {
+        core = loadCore();
+        // declining everything fills the caches before each change
+        initial = describe(core);
+    }
+
+    @Test
+    public void testAddRule() throws Exception {
+        assertMatchesFresh((edited) -> {
+            ConjugationGenRule rule = new ConjugationGenRule(TYPE_ID, COMBINED_ID);
+            rule.setName("Added");
+            rule.setRegex(".*");
+            rule.addClassToFilterList(-1, -1);
+            rule.addTransform(new ConjugationGenTransform("$", "-added"));
+            edited.getConjugationManager().addConjugationGenRule(rule);
+        });
+    }
+
+    @Test
+    public void testDeleteRule() throws Exception {
+        assertMatchesFresh((edited) -> {
+            ConjugationManager conjMan = edited.getConjugationManager();
+            conjMan.deleteConjugationGenRule(conjMan.getConjugationRulesForTypeAndCombId(TYPE_ID, COMBINED_ID)[0]);
+        });
+    }
+
+    @Test
+    public void testWipeRules() throws Exception {
+        assertMatchesFresh((edited) -> edited.getConjugationManager().wipeConjugationGenRules(TYPE_ID));
+    }
+
+    @Test
+    public void testRulesSmoothedOnSave() throws Exception {
+        ConjugationManager conjMan = core.getConjugationManager();
+
+        // reordered in place without notice: only saving (which smooths rule indices) brings the change in
+        conjMan.getConjugationRulesForTypeAndCombId(TYPE_ID, COMBINED_ID)[1].setIndex(0);
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        doc.appendChild(doc.createElement(PGTUtil.DICTIONARY_XID));
+        conjMan.writeXML(doc, doc.getDocumentElement());
+
+        DictCore fresh = loadCore();
+        fresh.getConjugationManager().getConjugationRulesForTypeAndCombId(TYPE_ID, COMBINED_ID)[1].setIndex(0);
+
+        String expected = describe(fresh);
+        assertFalse(initial.equals(expected));
+        assertEquals(expected, describe(core));
+    }
+
+    @Test
+    public void testMoveRules() throws Exception {
+        assertMatchesFresh((edited) -> {
+            ConjugationManager conjMan = edited.getConjugationManager();
+            ConjugationGenRule[] rules = conjMan.getConjugationRulesForTypeAndCombId(TYPE_ID, COMBINED_ID);
+            conjMan.moveRulesUp(TYPE_ID, COMBINED_ID, Arrays.asList(rules[1]));
+        });
+    }
+
+    @Test
+    public void testTemplateDimensionEdited() throws Exception {
+        assertMatchesFresh((edited) -> {
+            ConjugationManager conjMan = edited.getConjugationManager();
+            ConjugationNode template = conjMan.getFullConjugationListTemplate(TYPE_ID)[2];
+            ConjugationDimension dim = new ConjugationDimension();
+            dim.setValue("neutral");
+            template.addDimension(dim);
+            conjMan.notifyRulesChanged(TYPE_ID);
+        });
+    }
+
+    @Test
+    public void testTemplateDeleted() throws Exception {
+        assertMatchesFresh((edited) -> {
+            ConjugationManager conjMan = edited.getConjugationManager();
+            ConjugationNode template = conjMan.getFullConjugationListTemplate(TYPE_ID)[1];
+            conjMan.deleteConjugationFromTemplate(TYPE_ID, template.getId());
+        });
+    }
+
+    @Test
+    public void testSingletonTemplateAdded() throws Exception {
+        assertMatchesFresh((edited) -> {
+            ConjugationNode singleton = new ConjugationNode(-1, null);
+            singleton.setValue("Citation");
+            singleton.setDimensionless(true);
+            edited.getConjugationManager().addConjugationToTemplate(TYPE_ID, -1, singleton);
+        });
+    }
+
+    @Test
+    public void testTemplateUpdated() throws Exception {
+        assertMatchesFresh((edited) -> {
+            ConjugationManager conjMan = edited.getConjugationManager();
+            ConjugationNode template = conjMan.getFullConjugationListTemplate(TYPE_ID)[0];
+            ConjugationNode update = new ConjugationNode(template.getId(), null);
+            update.setEqual(template);
+            update.setValue("Renamed");
+            update.deleteDimension(update.getDimensions().iterator().next().getId());
+            conjMan.updateConjugationTemplate(TYPE_ID, template.getId(), update);
+        });
+    }
+
+    /**
+     * Applies an edit to the test core (caches filled) and to a freshly
+     * loaded core, asserting the edit changes the declined forms and that
+     * they then match
+     *
+     * @param edit edit to apply
+     */
+    private void assertMatchesFresh(CoreEdit edit) throws Exception {
+        String before = describe(core);
+        edit.apply(core);
+
+        DictCore fresh = loadCore();
+        edit.apply(fresh);
+        String expected = describe(fresh);
+
+        assertFalse(before.equals(expected));
+
+        assertEquals(expected, describe(core));
+    }
+
+    private static DictCore loadCore() throws Exception {
+        DictCore ret = new DictCore();
+        ret.readFile("test" + File.separator + "TestResources" + File.separator + "Lodenkur_TEST.pgd");
+
+        return ret;
+    }
+
+    /**
+     * Lists combined IDs of each test part of speech, the rules applying to
+     * each of its words and every form they decline to
+     */
+    private static String describe(DictCore _core) throws Exception {
+        ConjugationManager conjMan = _core.getConjugationManager();
+        StringBuilder ret = new StringBuilder();
+
+        for (int typeId : TYPE_IDS) {
+            ConjugationPair[] pairs = conjMan.getAllCombinedIds(typeId);
+            ret.append(typeId).append(": ").append(conjMan.getDimensionalCombinedIds(typeId).length)
+                    .append(" dimensional, ").append(conjMan.getSingletonCombinedIds(typeId).length)
+                    .append(" singleton\n");
+
+            for (ConjugationPair pair : pairs) {
+                ret.append("  ").append(pair.combinedId).append(" ").append(pair.label).append("\n");
+            }
+
+            for (ConWord word : _core.getWordCollection().getWordNodes()) {
+                if (word.getWordTypeId() == typeId) {
+                    ret.append("  ").append(word.getId()).append(" ").append(word.getValue()).append(":");
+
+                    for (ConjugationGenRule rule : conjMan.getConjugationRules(word)) {
+                        ret.append(" [").append(rule.getName()).append("]");
+                    }
+
+                    for (ConjugationPair pair : pairs) {
+                        ret.append(" ").append(conjMan.declineWord(word, pair.combinedId));
+                    }
+
+                    ret.append("\n");
+                }
+            }
+        }
+
+        return ret.toString();
+    }
+
+    private interface CoreEdit {
+        void apply(DictCore edited) throws Exception;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.ManagersCollections.ConjugationManager;
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.ConjugationPair;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that declining words from many threads at once gives the same forms
+ * as declining them one at a time, and that opt-in tracing still records a
+ * breakdown for the calling thread alone.
+ *
+ * @author draque
+ */
+public class DeclineWordThreadingTest {
+    private static final int ROUNDS = 5;
+    private final DictCore core;
+    private final ConjugationManager conjMan;
+    private final List<ConWord> words = new ArrayList<>();
+    private final List<String> combinedIds = new ArrayList<>();
+
+    public DeclineWordThreadingTest() throws Exception {
+        core = loadCore();
+        conjMan = core.getConjugationManager();
+
+        // one entry per form of every word
+        for (ConWord word : core.getWordCollection().getWordNodes()) {
+            for (ConjugationPair pair : conjMan.getAllCombinedIds(word.getWordTypeId())) {
+                words.add(word);
+                combinedIds.add(pair.combinedId);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws Exception {
+        assertTrue(words.size() > 1000);
+
+        // declined in parallel first, so that caches are also filled from many threads
+        String[] parallel = declineParallel();
+        String[] sequential = new String[words.size()];
+
+        for (int i = 0; i < sequential.length; i++) {
+            sequential[i] = conjMan.declineWord(words.get(i), combinedIds.get(i));
+        }
+
+        assertTrue(Arrays.stream(sequential).anyMatch((form) -> !form.isEmpty()));
+        assertArrayEquals(sequential, parallel);
+        assertArrayEquals(declineFresh(), sequential);
+
+        for (int i = 0; i < ROUNDS; i++) {
+            assertArrayEquals(sequential, declineParallel());
+        }
+
+        conjMan.setDeclensionTracing(true);
+        assertArrayEquals(sequential, declineParallel());
+        conjMan.setDeclensionTracing(false);
+    }
+
+    @Test
+    public void testTracing() throws Exception {
+        ConWord word = getWord(",2,2,2,");
+        List<String> expected = new ArrayList<>();
+        String form = conjMan.declineWord(word, ",2,2,2,", expected);
+
+        assertEquals("APPLIED RULES BREAKDOWN:\n", expected.get(0));
+        assertTrue(expected.size() > 1);
+        assertTrue(String.join("", expected).contains("Transformation:"));
+
+        // off by default: nothing recorded
+        assertEquals(form, conjMan.declineWord(word, ",2,2,2,"));
+        assertEquals(0, conjMan.getDecGenDebug().length);
+
+        conjMan.setDeclensionTracing(true);
+        assertTrue(conjMan.isDeclensionTracing());
+        assertEquals(form, conjMan.declineWord(word, ",2,2,2,"));
+        assertEquals(expected, Arrays.asList(conjMan.getDecGenDebug()));
+
+        // each declension replaces the last breakdown
+        assertEquals(form, conjMan.declineWord(word, ",2,2,2,"));
+        assertEquals(expected, Arrays.asList(conjMan.getDecGenDebug()));
+
+        // breakdowns are kept per thread
+        String[][] otherTrace = new String[1][];
+        Thread other = new Thread(() -> {
+            try {
+                conjMan.declineWord(getWord(",3,3,3,"), ",3,3,3,");
+                otherTrace[0] = conjMan.getDecGenDebug();
+            } catch (Exception e) {
+                otherTrace[0] = new String[]{e.getLocalizedMessage()};
+            }
+        });
+        other.start();
+        other.join();
+
+        List<String> otherExpected = new ArrayList<>();
+        conjMan.declineWord(getWord(",3,3,3,"), ",3,3,3,", otherExpected);
+        assertEquals(otherExpected, Arrays.asList(otherTrace[0]));
+        assertEquals(expected, Arrays.asList(conjMan.getDecGenDebug()));
+
+        conjMan.setDeclensionTracing(false);
+    }
+
+    private String[] declineParallel() {
+        String[] ret = new String[words.size()];
+
+        IntStream.range(0, ret.length).parallel().forEach((i) -> {
+            try {
+                ret[i] = conjMan.declineWord(words.get(i), combinedIds.get(i));
+            } catch (Exception e) {
+                ret[i] = "Error: " + e.getLocalizedMessage();
+            }
+        });
+
+        return ret;
+    }
+
+    /**
+     * Declines the same forms with a freshly loaded core, one at a time
+     */
+    private String[] declineFresh() throws Exception {
+        DictCore fresh = loadCore();
+        String[] ret = new String[words.size()];
+
+        for (int i = 0; i < ret.length; i++) {
+            ConWord word = fresh.getWordCollection().getNodeById(words.get(i).getId());
+            ret[i] = fresh.getConjugationManager().declineWord(word, combinedIds.get(i));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets first word with rules for the given form
+     */
+    private ConWord getWord(String combinedId) {
+        for (int i = 0; i < words.size(); i++) {
+            if (combinedIds.get(i).equals(combinedId)) {
+                return words.get(i);
+            }
+        }
+
+        throw new AssertionError("no word has form " + combinedId);
+    }
+
+    private static DictCore loadCore() throws Exception {
+        DictCore ret = new DictCore();
+        ret.readFile("test" + File.separator + "TestResources" + File.separator + "Lodenkur_TEST.pgd");
+
+        return ret;
+    }
+}
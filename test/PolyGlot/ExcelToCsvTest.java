@@ -24,6 +24,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -36,6 +39,12 @@ public class ExcelToCsvTest {
     private final String targetFile = "test" + File.separator + "testFile.csv";
     private final String excelFile = "test" + File.separator + "TestResources" + File.separator + "excelImport.xlsx";
     private final String excelFileWithNonStringVals = "test" + File.separator + "TestResources" + File.separator + "excelImportNonString.xlsx";
+    // same cells saved both ways: the xls has a MulBlank run and an embedded
+    // chart substream in its first sheet, the xlsx has phonetic runs, inline
+    // strings and cells without a reference
+    private final String quotingXls = "test" + File.separator + "TestResources" + File.separator + "excelQuoting.xls";
+    private final String quotingXlsx = "test" + File.separator + "TestResources" + File.separator + "excelQuoting.xlsx";
+    private final String quotingExpected;
     private final String sheet1Expected;
     private final String sheet2Expected;
     
@@ -52,6 +61,110 @@ public class ExcelToCsvTest {
             "\"\"\"G\"\"\",\"G'\",\",G\"";
         
         sheet2Expected = "\"SHEET 2\"";
+        
+        quotingExpected = "\"plain\",\"has \"\"quotes\"\"\",\"comma, inside\",\"two\nlines\",\"'single'\"\n" +
+            "\"1.0\",\"2.5\",\"-3.0\",\"true\",\"false\"\n" +
+            "\"\",\"\",\"<CELL FORMULA ERROR>\",\"after\"\n" +
+            "\"A\",\"\",\"\",\"\",\"E\"\n" +
+            "\"F\",,,\"far\"\n" +
+            ",\"\"\n";
+    }
+    
+    @Test
+    public void testQuotingSheet() throws Exception {
+        System.out.println("testQuotingSheet");
+        
+        for (String excel : new String[]{quotingXls, quotingXlsx}) {
+            assertEquals(excel, quotingExpected, convert(excel, 0));
+        }
+    }
+    
+    @Test
+    public void testQuotesDoubled() throws Exception {
+        System.out.println("testQuotesDoubled");
+        
+        for (String excel : new String[]{quotingXls, quotingXlsx}) {
+            assertTrue(excel, convert(excel, 0).contains(",\"has \"\"quotes\"\"\","));
+        }
+    }
+    
+    @Test
+    public void testDelimitersEnclosed() throws Exception {
+        System.out.println("testDelimitersEnclosed");
+        
+        for (String excel : new String[]{quotingXls, quotingXlsx}) {
+            String csv = convert(excel, 0);
+            assertTrue(excel, csv.contains(",\"comma, inside\","));
+            assertTrue(excel, csv.contains(",\"two\nlines\","));
+        }
+    }
+    
+    @Test
+    public void testNonStringCellsQuoted() throws Exception {
+        System.out.println("testNonStringCellsQuoted");
+        
+        for (String excel : new String[]{quotingXls, quotingXlsx}) {
+            String[] lines = convert(excel, 0).split("\n");
+            
+            // numbers and booleans (cells without a reference in the xlsx)
+            assertEquals(excel, "\"1.0\",\"2.5\",\"-3.0\",\"true\",\"false\"", lines[2]);
+            // numeric and string formulas are written empty, error values as a marker
+            assertEquals(excel, "\"\",\"\",\"<CELL FORMULA ERROR>\",\"after\"", lines[3]);
+        }
+    }
+    
+    @Test
+    public void testBlankCellsQuotedEmpty() throws Exception {
+        System.out.println("testBlankCellsQuotedEmpty");
+        
+        for (String excel : new String[]{quotingXls, quotingXlsx}) {
+            String[] lines = convert(excel, 0).split("\n");
+            
+            assertEquals(excel, "\"A\",\"\",\"\",\"\",\"E\"", lines[4]);
+            assertEquals(excel, ",\"\"", lines[6]);
+        }
+    }
+    
+    @Test
+    public void testMissingCellsAndRowsUnquoted() throws Exception {
+        System.out.println("testMissingCellsAndRowsUnquoted");
+        
+        for (String excel : new String[]{quotingXls, quotingXlsx}) {
+            String[] lines = convert(excel, 0).split("\n");
+            
+            // missing columns are left empty, missing rows are not written
+            assertEquals(excel, 7, lines.length);
+            assertEquals(excel, "\"F\",,,\"far\"", lines[5]);
+        }
+    }
+    
+    @Test
+    public void testPhoneticRunsSkipped() throws Exception {
+        System.out.println("testPhoneticRunsSkipped");
+        
+        for (String excel : new String[]{quotingXls, quotingXlsx}) {
+            String csv = convert(excel, 0);
+            
+            assertTrue(excel, csv.startsWith("\"plain\","));
+            assertTrue(excel, csv.contains(",\"'single'\"\n"));
+            assertFalse(excel, csv.contains("PHONETIC"));
+        }
+    }
+    
+    @Test
+    public void testSheetAfterEmbeddedSubstream() throws Exception {
+        System.out.println("testSheetAfterEmbeddedSubstream");
+        
+        for (String excel : new String[]{quotingXls, quotingXlsx}) {
+            assertEquals(excel, "\"second sheet\"\n", convert(excel, 1));
+            
+            try {
+                convert(excel, 2);
+                fail(excel + ": embedded substream counted as a sheet");
+            } catch (IllegalArgumentException e) {
+                // only two sheets
+            }
+        }
     }
     
     @Test
@@ -237,6 +350,16 @@ public class ExcelToCsvTest {
         new File (targetFile).delete();
     }
     
+    private String convert(String excel, int sheetNum) throws Exception {
+        try {
+            ExcelToCsv.readExcel(excel, targetFile, sheetNum);
+            
+            return new String(Files.readAllBytes(Paths.get(targetFile)), StandardCharsets.UTF_8);
+        } finally {
+            new File(targetFile).delete();
+        }
+    }
+    
     private String readFile(String fileIn) throws FileNotFoundException, IOException {
         String ret = "";
         
@@ -151,6 +151,94 @@ public class ExportToExcelTest {
         cleanup();
     }
     
+    @Test
+    public void testCompactDefinitionsOption() throws IOException {
+        String compactTarget = "test" + File.separator + "tmpCompact.xls";
+
+        try {
+            System.out.println("Testing compact definitions option");
+
+            String[] args = {"export-to-excel",
+                sourceFile,
+                targetFile,
+                PGTUtil.TRUE
+            };
+            String[] compactArgs = {"--compact-definitions",
+                "export-to-excel",
+                sourceFile,
+                compactTarget,
+                PGTUtil.TRUE
+            };
+
+            OutputInterceptor output = new OutputInterceptor(System.out);
+            System.setOut(output);
+            PolyGlot.main(args);
+            assert(output.getIntercepted().equals("SUCCESS"));
+
+            output = new OutputInterceptor(System.out);
+            System.setOut(output);
+            PolyGlot.main(compactArgs);
+            assert(output.getIntercepted().equals("SUCCESS"));
+
+            // compaction only changes how definitions are held in memory
+            assert(FileUtils.contentEquals(new File(targetFile), new File(compactTarget)));
+        } finally {
+            cleanup();
+            new File(compactTarget).delete();
+        }
+    }
+    
+    @Test
+    public void testStreamedXlsxRoundTrip() throws Exception {
+        String xlsxTarget = "test" + File.separator + "tmp.xlsx";
+        String xlsCsv = "test" + File.separator + "tmpXls.csv";
+        String xlsxCsv = "test" + File.separator + "tmpXlsx.csv";
+
+        try {
+            System.out.println("Testing streamed xlsx output");
+
+            for (String separate : new String[]{PGTUtil.TRUE, PGTUtil.FALSE}) {
+                OutputInterceptor output = new OutputInterceptor(System.out);
+                System.setOut(output);
+                PolyGlot.main(new String[]{"export-to-excel", sourceFile, targetFile, separate});
+                assert(output.getIntercepted().equals("SUCCESS"));
+
+                output = new OutputInterceptor(System.out);
+                System.setOut(output);
+                PolyGlot.main(new String[]{"export-to-excel", sourceFile, xlsxTarget, separate});
+                assert(output.getIntercepted().equals("SUCCESS"));
+
+                // every sheet of the streamed workbook reads back as the xls one does
+                int sheetNum = 0;
+                while (true) {
+                    try {
+                        ExcelToCsv.readExcel(targetFile, xlsCsv, sheetNum);
+                    } catch (IllegalArgumentException e) {
+                        break;
+                    }
+
+                    ExcelToCsv.readExcel(xlsxTarget, xlsxCsv, sheetNum);
+                    assert(FileUtils.contentEquals(new File(xlsCsv), new File(xlsxCsv)));
+                    sheetNum++;
+                }
+
+                assert(sheetNum > 1);
+
+                try {
+                    ExcelToCsv.readExcel(xlsxTarget, xlsxCsv, sheetNum);
+                    assert(false);
+                } catch (IllegalArgumentException e) {
+                    // streamed workbook has no extra sheets
+                }
+            }
+        } finally {
+            cleanup();
+            new File(xlsxTarget).delete();
+            new File(xlsCsv).delete();
+            new File(xlsxCsv).delete();
+        }
+    }
+    
     private void cleanup() {
         File file = new File(targetFile);
         file.delete();
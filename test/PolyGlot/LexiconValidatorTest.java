@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.ManagersCollections.ConWordCollection;
+import PolyGlot.ManagersCollections.LexiconValidator;
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.LexiconProblemNode;
+import PolyGlot.Nodes.TypeNode;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that validating the lexicon in one pass, in parallel or not, flags
+ * the same words with the same problems as checking each word on its own.
+ *
+ * @author draque
+ */
+public class LexiconValidatorTest {
+    private final DictCore core;
+    private final ConWordCollection wordCollection;
+
+    public LexiconValidatorTest() throws Exception {
+        core = new DictCore();
+        core.readFile("test" + File.separator + "TestResources" + File.separator + "Lodenkur_TEST.pgd");
+        wordCollection = core.getWordCollection();
+    }
+
+    @Test
+    public void testLoadedLexicon() {
+        assertSameProblems();
+    }
+
+    @Test
+    public void testRulesEnforced() throws Exception {
+        core.getPropertiesManager().setWordUniqueness(true);
+        core.getPropertiesManager().setLocalUniqueness(true);
+        core.getPropertiesManager().setLocalMandatory(true);
+        core.getPropertiesManager().setTypesMandatory(true);
+
+        TypeNode type = core.getTypes().getBufferType();
+        type.setValue("Patterned");
+        type.setPattern("^[a-z]+$", core);
+        type.setDefMandatory(true);
+        type.setProcMandatory(true);
+        int typeId = core.getTypes().insert();
+        String existing = wordCollection.getWordNodes()[0].getValue();
+
+        addWord("dupe", "dupeLocal", typeId, "defined", false);
+        addWord("dupe", "dupeLocal", typeId, "defined", false);
+        addWord(existing, "", 0, "", false);
+        addWord("Mismatch", "mismatchLocal", typeId, "", false);
+        addWord("nodefinition", "nodefLocal", typeId, "", false);
+        addWord("", "blankLocal", typeId, "defined", false);
+        addWord("Override", "", 0, "", true);
+        addWord("Override", "", typeId, "", true);
+
+        Map<Integer, String> problems = assertSameProblems();
+
+        for (ConWord word : wordCollection.getWordNodes()) {
+            assertEquals(word.getValue(), !word.isRulesOverride() && !word.isWordLegal(),
+                    problems.containsKey(word.getId()));
+        }
+
+        assertTrue(problems.size() > 8);
+        assertFalse(containsWord(problems, "Override"));
+        assertTrue(containsWord(problems, "Mismatch"));
+        assertTrue(getProblem(problems, "Mismatch").contains("Word does not match enforced pattern for type: Patterned."));
+        assertTrue(getProblem(problems, "dupe").contains("this conword exists elsewhere."));
+        assertTrue(getProblem(problems, "dupe").contains("this local exists elsewhere."));
+        assertTrue(getProblem(problems, "nodefinition").contains("Definition required for Patterned words."));
+        assertTrue(getProblem(problems, existing).contains("Types set to mandatory."));
+    }
+
+    private void addWord(String value, String local, int typeId, String definition, boolean override) throws Exception {
+        ConWord word = new ConWord();
+        word.setValue(value);
+        word.setLocalWord(local);
+        word.setWordTypeId(typeId);
+        word.setDefinition(definition);
+        word.setRulesOverride(override);
+        wordCollection.addWord(word);
+    }
+
+    /**
+     * Asserts that parallel and sequential validation and a per word loop
+     * over isWordLegal() report the same words in alphabetical order, with the
+     * same problem text
+     *
+     * @return problem text by word ID
+     */
+    private Map<Integer, String> assertSameProblems() {
+        // words are listed alphabetically, as in the report
+        Map<Integer, String> expected = new LinkedHashMap<>();
+
+        for (ConWord word : wordCollection.getWordNodes()) {
+            if (!word.isRulesOverride() && !word.isWordLegal()) {
+                expected.put(word.getId(), describe(wordCollection.testWordLegality(word)));
+            }
+        }
+
+        Map<Integer, String> parallel = getProblems(wordCollection.validateLexicon(true));
+        Map<Integer, String> sequential = getProblems(wordCollection.validateLexicon(false));
+
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(parallel.entrySet()));
+        assertEquals(new ArrayList<>(parallel.entrySet()), new ArrayList<>(sequential.entrySet()));
+        assertEquals(new ArrayList<>(parallel.keySet()), getIds(wordCollection.illegalFilter()));
+
+        return expected;
+    }
+
+    private Map<Integer, String> getProblems(LexiconValidator.Report report) {
+        Map<Integer, String> ret = new LinkedHashMap<>();
+        ConWord[] illegal = report.getIllegalWords();
+        LexiconProblemNode[] problems = report.getProblems();
+
+        assertEquals(wordCollection.getWordCount(), report.getWordsChecked());
+        assertEquals(illegal.length, problems.length);
+        assertEquals(illegal.length == 0, report.isClean());
+
+        for (int i = 0; i < illegal.length; i++) {
+            assertSame(illegal[i], problems[i].problemWord);
+            ret.put(illegal[i].getId(), problems[i].description);
+        }
+
+        return ret;
+    }
+
+    private static List<Integer> getIds(ConWord[] words) {
+        List<Integer> ret = new ArrayList<>();
+
+        for (ConWord word : words) {
+            ret.add(word.getId());
+        }
+
+        return ret;
+    }
+
+    private boolean containsWord(Map<Integer, String> problems, String value) {
+        for (Integer id : problems.keySet()) {
+            if (wordCollection.getNodeById(id).getValue().equals(value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private String getProblem(Map<Integer, String> problems, String value) {
+        String ret = "";
+
+        for (Map.Entry<Integer, String> entry : problems.entrySet()) {
+            if (wordCollection.getNodeById(entry.getKey()).getValue().equals(value)) {
+                ret += entry.getValue() + "\n";
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Lists problems recorded by a single word legality check one per line,
+     * in field order
+     */
+    private static String describe(ConWord checkValue) {
+        List<String> lines = new ArrayList<>();
+        String proc;
+
+        try {
+            proc = checkValue.getPronunciation();
+        } catch (Exception e) {
+            proc = "Regex error: " + e.getLocalizedMessage();
+        }
+
+        for (String problem : new String[]{checkValue.getValue(), checkValue.getLocalWord(),
+            checkValue.typeError, checkValue.getDefinition(), proc}) {
+            for (String line : problem.split("\n")) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line.trim());
+                }
+            }
+        }
+
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.ManagersCollections.PronunciationCache;
+import PolyGlot.ManagersCollections.PronunciationMgr;
+import PolyGlot.Nodes.PronunciationNode;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that cached pronunciations are dropped by every change to the rules
+ * or to the settings they are applied with, and the cache's own bookkeeping.
+ *
+ * @author draque
+ */
+public class PronunciationCacheTest {
+    private static final String[] WORDS = {"a", "A", "ab", "AB", "abc", "a.", "A.", "ba", "c", "cab", ""};
+    private final DictCore core;
+    private final PronunciationMgr procMan;
+
+    public PronunciationCacheTest() throws Exception {
+        core = new DictCore();
+        procMan = core.getPronunciationMgr();
+        core.getPropertiesManager().setDisableProcRegex(false);
+        core.getPropertiesManager().setIgnoreCase(false);
+        setRules("a", "1", "b", "2");
+    }
+
+    @Test
+    public void testRuleMutatorsDropCachedResults() throws Exception {
+        assertCached("ab", "12");
+        assertCached("abc", "");
+
+        PronunciationNode cNode = new PronunciationNode("c", "3");
+        procMan.addPronunciation(cNode);
+        assertCached("abc", "123");
+
+        PronunciationNode abNode = new PronunciationNode("ab", "X");
+        procMan.addPronunciation(abNode);
+        assertCached("ab", "12");
+
+        // earlier rules take priority, so "ab" only wins once at the top
+        procMan.moveProcUp(3);
+        procMan.moveProcUp(2);
+        assertCached("ab", "12");
+        procMan.moveProcUp(1);
+        assertCached("ab", "X");
+        assertCached("cab", "3X");
+
+        procMan.moveProcDown(0);
+        assertCached("ab", "12");
+
+        procMan.deletePronunciation(cNode);
+        assertCached("abc", "");
+        assertCached("cab", "");
+
+        setRules("a", "4");
+        assertCached("ab", "");
+        assertCached("a", "4");
+
+        procMan.addAtPosition(0, new PronunciationNode("a", "5"));
+        assertCached("a", "5");
+    }
+
+    @Test
+    public void testRecurseDropsCachedResults() throws Exception {
+        setRules("a", "b", "b", "c");
+        assertCached("a", "b");
+
+        procMan.setRecurse(true);
+        assertCached("a", "c");
+        assertCached("ab", "cc");
+
+        procMan.setRecurse(false);
+        assertCached("a", "b");
+    }
+
+    @Test
+    public void testModesKeyCachedResults() throws Exception {
+        setRules("a", "1", "a.", "9");
+        assertCached("ab", "9");
+        assertCached("a.", "9");
+
+        // with regex disabled "a." only matches itself
+        core.getPropertiesManager().setDisableProcRegex(true);
+        assertCached("ab", "");
+        assertCached("A", "");
+
+        // case is only ignored by literal rules
+        core.getPropertiesManager().setIgnoreCase(true);
+        assertCached("A", "1");
+        assertCached("A.", "9");
+
+        core.getPropertiesManager().setIgnoreCase(false);
+        assertCached("A", "");
+
+        core.getPropertiesManager().setDisableProcRegex(false);
+        assertCached("ab", "9");
+    }
+
+    @Test
+    public void testNodeEditedInPlace() throws Exception {
+        PronunciationNode node = procMan.getPronunciations()[0];
+        assertCached("a", "1");
+
+        node.setPronunciation("6");
+        procMan.rulesChanged();
+        assertCached("a", "6");
+    }
+
+    @Test
+    public void testCacheCounters() {
+        PronunciationCache cache = new PronunciationCache(2);
+
+        assertNull(cache.get("a", 1));
+        cache.put("a", "1", 1);
+        cache.put("b", "2", 1);
+        assertEquals("1", cache.get("a", 1));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate(), 0.0);
+
+        // "b" is least recently used, so is evicted first
+        cache.put("c", "3", 1);
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b", 1));
+        assertEquals("3", cache.get("c", 1));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        // a new rule set version discards everything held
+        assertNull(cache.get("a", 2));
+        assertEquals(0, cache.size());
+
+        cache.resetStats();
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+        assertEquals(0.0, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testZeroCapacity() throws Exception {
+        PronunciationCache cache = new PronunciationCache(2);
+        cache.put("a", "1", 1);
+
+        cache.setCapacity(0);
+        assertEquals(0, cache.size());
+        cache.put("a", "1", 1);
+        assertNull(cache.get("a", 1));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEvictions());
+
+        // pronunciations still generate correctly with caching off
+        procMan.getResultCache().setCapacity(0);
+        assertCached("ab", "12");
+        procMan.addPronunciation(new PronunciationNode("c", "3"));
+        assertCached("abc", "123");
+        assertEquals(0, procMan.getResultCache().size());
+        procMan.getResultCache().setCapacity(PGTUtil.PRONUNCIATION_CACHE_SIZE);
+    }
+
+    /**
+     * Asserts word's pronunciation, then that every test word's pronunciation
+     * (read twice so the second comes from the cache) matches one generated
+     * without the cache
+     */
+    private void assertCached(String word, String expected) throws Exception {
+        assertEquals(word, expected, procMan.getPronunciation(word));
+
+        for (String test : WORDS) {
+            String uncached = getUncached(test);
+
+            assertEquals(test, uncached, procMan.getPronunciation(test));
+            assertEquals(test, uncached, procMan.getPronunciation(test));
+        }
+    }
+
+    private String getUncached(String word) throws Exception {
+        String ret = "";
+
+        for (PronunciationNode element : procMan.getPronunciationElements(word)) {
+            ret += element.getPronunciation();
+        }
+
+        return ret;
+    }
+
+    private void setRules(String... valuesAndPronunciations) {
+        List<PronunciationNode> rules = new ArrayList<>();
+
+        for (int i = 0; i < valuesAndPronunciations.length; i += 2) {
+            rules.add(new PronunciationNode(valuesAndPronunciations[i], valuesAndPronunciations[i + 1]));
+        }
+
+        procMan.setPronunciations(rules);
+    }
+}
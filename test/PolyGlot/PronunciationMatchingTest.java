@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.ManagersCollections.PronunciationMgr;
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.PronunciationNode;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks regex and literal pronunciation segmentation against the original
+ * first-match-wins matchers, reproduced here as reference implementations.
+ *
+ * @author draque
+ */
+public class PronunciationMatchingTest {
+    private final DictCore core;
+    private final List<String> words = new ArrayList<>();
+
+    public PronunciationMatchingTest() throws Exception {
+        core = new DictCore();
+        core.readFile("test" + File.separator + "TestResources" + File.separator + "Lodenkur_TEST.pgd");
+        DictCore other = new DictCore();
+        other.readFile("test" + File.separator + "TestResources" + File.separator + "excel_exp_test.pgd");
+
+        for (ConWord word : core.getWordCollection().getWordNodes()) {
+            words.add(word.getValue());
+        }
+
+        for (ConWord word : other.getWordCollection().getWordNodes()) {
+            words.add(word.getValue());
+        }
+    }
+
+    @Test
+    public void testRegexMatchesBacktrackingOverLexicon() throws Exception {
+        core.getPropertiesManager().setDisableProcRegex(false);
+
+        for (String word : words) {
+            assertRegexEquivalent(word);
+        }
+    }
+
+    @Test
+    public void testRegexAnchoredRules() throws Exception {
+        core.getPropertiesManager().setDisableProcRegex(false);
+        setRules("^a", "A", "b$", "B", "ab", "x", "a", "1", "b", "2", "c+", "C",
+                "(d)(e)", "$2$1", "e$", "E", "e", "3", "d", "4", "^z", "Z");
+
+        for (String word : new String[]{"a", "ab", "aab", "ba", "abab", "cccab", "de", "ede", "dee",
+            "ae", "eb", "bb", "z", "zz", "az", "abz", "cz", ""}) {
+            assertRegexEquivalent(word);
+        }
+
+        for (String word : words) {
+            assertRegexEquivalent(word);
+        }
+    }
+
+    @Test
+    public void testRegexLongWords() throws Exception {
+        core.getPropertiesManager().setDisableProcRegex(false);
+        setRules("^a", "A", "b$", "B", "ab", "x", "a", "1", "b", "2", "c+", "C", "d", "4");
+
+        // lengths either side of the recursion limit, both segmenting fully and failing at the end
+        for (int length = PGTUtil.MAX_PROC_RECURSE - 2; length <= PGTUtil.MAX_PROC_RECURSE + 2; length++) {
+            assertRegexEquivalent(repeat("ab", length / 2));
+            assertRegexEquivalent(repeat("a", length));
+            assertRegexEquivalent(repeat("d", length));
+            assertRegexEquivalent(repeat("d", length) + "z");
+            assertRegexEquivalent(repeat("c", length) + "z");
+            assertRegexEquivalent(repeat("c", length) + "ab");
+        }
+    }
+
+    @Test
+    public void testLiteralMatchesLoopOverLexicon() throws Exception {
+        core.getPropertiesManager().setDisableProcRegex(true);
+
+        for (boolean ignoreCase : new boolean[]{false, true}) {
+            core.getPropertiesManager().setIgnoreCase(ignoreCase);
+
+            for (String word : words) {
+                assertLiteralEquivalent(word);
+            }
+        }
+    }
+
+    @Test
+    public void testLiteralPriorityAndCase() throws Exception {
+        core.getPropertiesManager().setDisableProcRegex(true);
+        // earlier rules win over later ones, even where a later rule is longer or differs only in case
+        setRules("ab", "x", "a", "1", "AB", "Y", "abc", "z", "b", "2", "B", "3", "c", "4", "A", "5",
+                "ας", "F", "σ", "s", "Σ", "S", "ς", "f", "α", "8", "ß", "ss", "^a", "6", "a.", "7");
+
+        for (boolean ignoreCase : new boolean[]{false, true}) {
+            core.getPropertiesManager().setIgnoreCase(ignoreCase);
+
+            for (String word : new String[]{"ab", "AB", "aB", "Ab", "abc", "ABC", "abcab", "ba", "BA",
+                "cab", "CAB", "aab", "zab", "σας", "ΣΑΣ", "Σας", "ΑΣ", "ΑΣΑ", "ß", "SS", "^a", "a.", "A.", "abz", ""}) {
+                assertLiteralEquivalent(word);
+            }
+
+            for (String word : words) {
+                assertLiteralEquivalent(word);
+            }
+        }
+    }
+
+    @Test
+    public void testLiteralLongWords() throws Exception {
+        core.getPropertiesManager().setDisableProcRegex(true);
+        setRules("ab", "x", "a", "1", "B", "2", "c", "3");
+
+        for (boolean ignoreCase : new boolean[]{false, true}) {
+            core.getPropertiesManager().setIgnoreCase(ignoreCase);
+
+            for (int length = PGTUtil.MAX_PROC_RECURSE - 2; length <= PGTUtil.MAX_PROC_RECURSE + 2; length++) {
+                assertLiteralEquivalent(repeat("ab", length / 2));
+                assertLiteralEquivalent(repeat("aB", length / 2));
+                assertLiteralEquivalent(repeat("c", length));
+                assertLiteralEquivalent(repeat("c", length) + "z");
+            }
+        }
+    }
+
+    private void assertLiteralEquivalent(String word) throws Exception {
+        PronunciationMgr procMan = core.getPronunciationMgr();
+        List<PronunciationNode> rules = Arrays.asList(procMan.getPronunciations());
+        List<PronunciationNode> expected = word.isEmpty() || rules.isEmpty()
+                ? new ArrayList<>() : loopLiteral(rules, word, core.getPropertiesManager().isIgnoreCase());
+
+        assertEquals(word, describe(expected), describe(Arrays.asList(procMan.getPronunciationElements(word))));
+    }
+
+    /**
+     * The original literal segmentation: compares every rule in priority
+     * order at every position
+     */
+    private List<PronunciationNode> loopLiteral(List<PronunciationNode> rules, String base, boolean ignoreCase) {
+        List<PronunciationNode> ret = new ArrayList<>();
+
+        for (PronunciationNode curNode : rules) {
+            String pattern = curNode.getValue();
+
+            if (pattern.length() <= base.length()) {
+                String comp = base.substring(0, curNode.getValue().length());
+
+                if (ignoreCase) {
+                    comp = comp.toLowerCase();
+                    pattern = pattern.toLowerCase();
+                }
+
+                if (comp.equals(pattern)) {
+                    List<PronunciationNode> temp = loopLiteral(rules, base.substring(pattern.length()), ignoreCase);
+
+                    if (pattern.length() == base.length() || !temp.isEmpty()) {
+                        ret.add(curNode);
+                        ret.addAll(temp);
+                        break;
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private void assertRegexEquivalent(String word) throws Exception {
+        PronunciationMgr procMan = core.getPronunciationMgr();
+        List<PronunciationNode> rules = Arrays.asList(procMan.getPronunciations());
+        List<PronunciationNode> expected = word.isEmpty() || rules.isEmpty()
+                ? new ArrayList<>() : backtrackRegex(rules, word, true);
+
+        assertEquals(word, describe(expected), describe(Arrays.asList(procMan.getPronunciationElements(word))));
+    }
+
+    /**
+     * The original regex segmentation: tries every rule at every position,
+     * backtracking through all paths without memoization
+     */
+    private List<PronunciationNode> backtrackRegex(List<PronunciationNode> rules, String base, boolean beginning) {
+        List<PronunciationNode> ret = new ArrayList<>();
+
+        for (PronunciationNode curNode : rules) {
+            String pattern = curNode.getValue();
+
+            if (pattern.startsWith("^") && !beginning) {
+                continue;
+            }
+
+            String origPattern = pattern;
+
+            if (pattern.startsWith("^")) {
+                pattern = "^(" + pattern.substring(1) + ").*";
+            } else {
+                pattern = "^(" + pattern + ").*";
+            }
+
+            Matcher matcher = Pattern.compile(pattern).matcher(base);
+
+            if (matcher.matches()) {
+                String leadingChars = matcher.group(1);
+
+                if (leadingChars.isEmpty()) {
+                    continue;
+                }
+
+                List<PronunciationNode> temp = backtrackRegex(rules, base.substring(leadingChars.length()), false);
+
+                if (leadingChars.length() == base.length() || !temp.isEmpty()) {
+                    PronunciationNode finalNode = new PronunciationNode();
+                    finalNode.setEqual(curNode);
+                    finalNode.setPronunciation(leadingChars.replaceAll(origPattern, curNode.getPronunciation()));
+                    ret.add(finalNode);
+                    ret.addAll(temp);
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private void setRules(String... valuesAndPronunciations) {
+        List<PronunciationNode> rules = new ArrayList<>();
+
+        for (int i = 0; i < valuesAndPronunciations.length; i += 2) {
+            rules.add(new PronunciationNode(valuesAndPronunciations[i], valuesAndPronunciations[i + 1]));
+        }
+
+        core.getPronunciationMgr().setPronunciations(rules);
+    }
+
+    private static String describe(List<PronunciationNode> elements) {
+        String ret = "";
+
+        for (PronunciationNode node : elements) {
+            ret += "[" + node.getValue() + "->" + node.getPronunciation() + "]";
+        }
+
+        return ret;
+    }
+
+    private static String repeat(String text, int count) {
+        String ret = "";
+
+        for (int i = 0; i < count; i++) {
+            ret += text;
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.ManagersCollections.PronunciationMgr;
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.PronunciationNode;
+import java.io.File;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Checks recursive pronunciation against applying String.replaceAll() for
+ * each rule. The ignored benchmark reports the time taken by each over the
+ * full test lexicon when run by hand.
+ *
+ * @author draque
+ */
+public class PronunciationRecurseTest {
+    private static final int ROUNDS = 50;
+    private final DictCore core;
+    private final String sourceFile;
+
+    public PronunciationRecurseTest() throws Exception {
+        sourceFile = "test" + File.separator + "TestResources" + File.separator + "Lodenkur_TEST.pgd";
+        core = new DictCore();
+        core.readFile(sourceFile);
+        core.getPronunciationMgr().setRecurse(true);
+    }
+
+    @Test
+    public void testRewriteChainMatchesReplaceAll() throws Exception {
+        PronunciationMgr procMan = core.getPronunciationMgr();
+
+        for (ConWord word : core.getWordCollection().getWordNodes()) {
+            PronunciationNode[] elements = procMan.getPronunciationElements(word.getValue());
+
+            assert(elements.length == 1);
+            assert(elements[0].getPronunciation().equals(replaceAllChain(word.getValue())));
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark only: asserts nothing, run by hand to compare timings")
+    public void benchmarkRewriteChain() throws Exception {
+        PronunciationMgr procMan = core.getPronunciationMgr();
+        ConWord[] words = core.getWordCollection().getWordNodes();
+
+        // warm up both paths before timing
+        for (ConWord word : words) {
+            procMan.getPronunciationElements(word.getValue());
+            replaceAllChain(word.getValue());
+        }
+
+        // elements are fetched directly so that cached pronunciations are not measured
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (ConWord word : words) {
+                procMan.getPronunciationElements(word.getValue());
+            }
+        }
+        long chainTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (ConWord word : words) {
+                replaceAllChain(word.getValue());
+            }
+        }
+        long replaceAllTime = System.nanoTime() - start;
+
+        System.out.println("Recursive pronunciation of " + words.length + " words x " + ROUNDS
+                + ": rewrite chain " + (chainTime / 1000000) + "ms, replaceAll "
+                + (replaceAllTime / 1000000) + "ms");
+    }
+
+    private String replaceAllChain(String base) {
+        String ret = base;
+
+        for (PronunciationNode node : core.getPronunciationMgr().getPronunciations()) {
+            ret = ret.replaceAll(node.getValue(), node.getPronunciation());
+        }
+
+        return ret;
+    }
+}
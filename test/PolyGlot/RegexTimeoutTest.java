@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.Exceptions.RegexTimeoutException;
+import PolyGlot.ManagersCollections.ConjugationManager;
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.ConjugationGenRule;
+import PolyGlot.Nodes.ConjugationGenTransform;
+import PolyGlot.Nodes.TypeNode;
+import java.util.regex.Pattern;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that runaway user patterns are stopped on every guarded path with an
+ * error naming the rule or pattern at fault, and that a time limit of 0 turns
+ * the guard off.
+ *
+ * @author draque
+ */
+public class RegexTimeoutTest {
+    // backtracks exponentially against a run of a's not followed by b: an
+    // unguarded match against 60 of them never finishes, hence the timeouts
+    private static final String RUNAWAY_REGEX = "(a+)+b";
+    private static final String COMBINED_ID = ",1,";
+    private final DictCore core;
+    private final int typeId;
+
+    public RegexTimeoutTest() throws Exception {
+        core = new DictCore();
+        TypeNode type = core.getTypes().getBufferType();
+        type.setValue("Runaway Type");
+        typeId = core.getTypes().insert();
+        RegexTools.setMatchTimeLimit(50);
+    }
+
+    @After
+    public void tearDown() {
+        RegexTools.setMatchTimeLimit(PGTUtil.REGEX_MATCH_TIME_LIMIT);
+    }
+
+    @Test(timeout = 10000)
+    public void testRuleFilterStopped() throws Exception {
+        addRule("Runaway Filter", RUNAWAY_REGEX, ".*", "x");
+
+        try {
+            core.getConjugationManager().declineWord(getWord(60), COMBINED_ID);
+            fail("runaway rule filter not stopped");
+        } catch (RegexTimeoutException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Conjugation rule \"Runaway Filter\""));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testRuleTransformStopped() throws Exception {
+        addRule("Runaway Transform", ".*", RUNAWAY_REGEX, "x");
+
+        try {
+            core.getConjugationManager().declineWord(getWord(60), COMBINED_ID);
+            fail("runaway rule transform not stopped");
+        } catch (Exception e) {
+            assertTrue(e.getCause() instanceof RegexTimeoutException);
+            assertTrue(e.getMessage(), e.getMessage().contains("Conjugation rule \"Runaway Transform\""));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testTypePatternStopped() throws Exception {
+        core.getTypes().getNodeById(typeId).setPattern(RUNAWAY_REGEX, core);
+        ConWord word = getWord(60);
+        String problems = core.getWordCollection().testWordLegality(word).getDefinition();
+
+        // reported as the word's problem rather than thrown
+        assertTrue(problems, problems.contains("Pattern of part of speech \"Runaway Type\""));
+        assertTrue(problems, problems.contains("regex time limit"));
+    }
+
+    @Test(timeout = 10000)
+    public void testReplacementStopped() throws Exception {
+        for (RegexTools.ReplaceOptions option : new RegexTools.ReplaceOptions[]{
+            RegexTools.ReplaceOptions.All, RegexTools.ReplaceOptions.FirstInstanceOnly}) {
+            try {
+                RegexTools.advancedReplace(getWord(60).getValue(), RUNAWAY_REGEX, "x", option);
+                fail("runaway replacement not stopped: " + option);
+            } catch (RegexTimeoutException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("Replacement pattern \"" + RUNAWAY_REGEX + "\""));
+            }
+        }
+    }
+
+    @Test
+    public void testZeroLimitDisablesGuard() throws Exception {
+        // slow enough to pass a 1ms limit, fast enough to finish unguarded
+        String value = getWord(20).getValue();
+        Pattern pattern = Pattern.compile(RUNAWAY_REGEX);
+
+        RegexTools.setMatchTimeLimit(1);
+
+        try {
+            RegexTools.guardedMatcher(pattern, value, "Limited").matches();
+            fail("1ms limit not applied");
+        } catch (RegexTimeoutException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Limited ran longer than the 1ms"));
+        }
+
+        RegexTools.setMatchTimeLimit(0);
+        assertFalse(RegexTools.guardedMatcher(pattern, value, "Unlimited").matches());
+        assertEquals(value, RegexTools.advancedReplace(value, RUNAWAY_REGEX, "x", RegexTools.ReplaceOptions.All));
+    }
+
+    private void addRule(String name, String filter, String transform, String replacement) {
+        ConjugationManager conjMan = core.getConjugationManager();
+        ConjugationGenRule rule = new ConjugationGenRule(typeId, COMBINED_ID);
+        rule.setName(name);
+        rule.setRegex(filter);
+        rule.addTransform(new ConjugationGenTransform(transform, replacement));
+        conjMan.addConjugationGenRule(rule);
+    }
+
+    /**
+     * Gets a word of the test part of speech whose value is a run of a's
+     * ending in c
+     */
+    private ConWord getWord(int length) {
+        StringBuilder value = new StringBuilder();
+
+        for (int i = 0; i < length; i++) {
+            value.append('a');
+        }
+
+        ConWord ret = new ConWord();
+        ret.setCore(core);
+        ret.setValue(value.append('c').toString());
+        ret.setWordTypeId(typeId);
+
+        return ret;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.ManagersCollections.ConWordCollection;
+import PolyGlot.Nodes.ConWord;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that searches narrowed by the search index return exactly what a
+ * full scan returns, as words are edited in place, replaced, inserted and
+ * deleted after the index is built.
+ *
+ * @author draque
+ */
+public class SearchIndexTest {
+    private final DictCore indexed;
+    private final DictCore plain;
+
+    public SearchIndexTest() throws Exception {
+        String sourceFile = "test" + File.separator + "TestResources" + File.separator + "Lodenkur_TEST.pgd";
+        indexed = new DictCore();
+        indexed.readFile(sourceFile);
+        indexed.getWordCollection().setUseSearchIndex(true);
+        plain = new DictCore();
+        plain.readFile(sourceFile);
+    }
+
+    @Test
+    public void testLoadedLexicon() throws Exception {
+        assertSameResults(getQueries());
+    }
+
+    @Test
+    public void testWordsEditedInPlace() throws Exception {
+        Integer[] ids = getIds();
+
+        for (DictCore core : new DictCore[]{indexed, plain}) {
+            ConWordCollection words = core.getWordCollection();
+            words.getNodeById(ids[0]).setValue("ΛΟΓΟΣΑ");
+            words.getNodeById(ids[1]).setLocalWord("ΛΟΓΟΣΑ");
+            words.getNodeById(ids[2]).setDefinition("<html><body>Ο ΛΟΓΟΣ, ο λογος</body></html>");
+
+            ConWord source = new ConWord();
+            source.setCore(core);
+            source.setValue("zzqeq");
+            source.setLocalWord("qeqzz");
+            source.setDefinition("qeq definition");
+            words.getNodeById(ids[3]).setEqual(source);
+        }
+
+        assertSameResults(getQueries("ΟΣ", "ος", "οσ", "ΛΟΓ", "λογ", "zzq", "qeq", "QEQ"));
+    }
+
+    @Test
+    public void testWordsReplacedInsertedAndDeleted() throws Exception {
+        Integer[] ids = getIds();
+
+        for (DictCore core : new DictCore[]{indexed, plain}) {
+            ConWordCollection words = core.getWordCollection();
+            words.deleteNodeById(ids[4]);
+
+            ConWord replacement = new ConWord();
+            replacement.setCore(core);
+            replacement.setValue("vixvax");
+            replacement.setLocalWord("ΣΑΛΟΣ");
+            replacement.setDefinition("vax definition");
+            words.modifyNode(ids[5], replacement);
+        }
+
+        assertSameResults(Arrays.asList("vix", "vax", "ΑΛΟ", "αλο"));
+
+        for (DictCore core : new DictCore[]{indexed, plain}) {
+            ConWordCollection words = core.getWordCollection();
+            ConWord replacement = words.getNodeById(ids[5]);
+
+            // the replacement is now the word in the collection, and reports its own changes
+            replacement.setLocalWord("ΣΑΛΟΣΑ");
+
+            ConWord added = new ConWord();
+            added.setCore(core);
+            added.setValue("vaxvix");
+            added.setLocalWord("ΧΑΟΣ");
+            added.setDefinition("vix definition");
+            words.addWord(added);
+        }
+
+        assertEquals(plain.getWordCollection().getWordCount(), indexed.getWordCollection().getWordCount());
+        assertSameResults(getQueries("vix", "vax", "ΟΣ", "ος", "ΑΛΟ", "αλο", "χα"));
+    }
+
+    @Test
+    public void testFinalSigma() throws Exception {
+        // lower cased as a whole, a trailing capital sigma becomes final sigma, any other does not
+        Integer[] ids = getIds();
+
+        for (DictCore core : new DictCore[]{indexed, plain}) {
+            core.getWordCollection().getNodeById(ids[0]).setLocalWord("ΛΟΓΟΣΑ");
+            core.getWordCollection().getNodeById(ids[1]).setLocalWord("ΛΟΓΟΣ");
+            core.getWordCollection().getNodeById(ids[2]).setDefinition("λογος");
+            core.getWordCollection().getNodeById(ids[3]).setDefinition("ΛΟΓΟΣ.");
+        }
+
+        for (boolean ignoreCase : new boolean[]{false, true}) {
+            setIgnoreCase(ignoreCase);
+            List<Integer> local = Arrays.asList(getIds(filter(indexed, "", "ΟΣ", "")));
+            List<Integer> suggested = Arrays.asList(getIds(indexed.getWordCollection().getSuggestedTransWords("ΟΣ")));
+
+            // ignoring case, "ος" is not within "λογοσα"
+            assertEquals(!ignoreCase, local.contains(ids[0]));
+            assertTrue(local.contains(ids[1]));
+            assertEquals(ignoreCase, suggested.contains(ids[2]));
+            assertEquals(!ignoreCase, Arrays.asList(getIds(indexed.getWordCollection().getSuggestedTransWords("Σ."))).contains(ids[3]));
+        }
+
+        assertSameResults(Arrays.asList("ΟΣ", "ος", "οσ", "ΟΣΑ", "οσα", "Σ.", "σ."));
+    }
+
+    /**
+     * Runs every query as a suggestion search and as definition, local word
+     * and value filters on both cores, in both case modes
+     */
+    private void assertSameResults(List<String> queries) throws Exception {
+        for (boolean ignoreCase : new boolean[]{false, true}) {
+            setIgnoreCase(ignoreCase);
+
+            for (int i = 0; i < queries.size(); i++) {
+                String query = queries.get(i);
+                String message = query + " (ignore case: " + ignoreCase + ")";
+
+                assertArrayEquals(message, getIds(plain.getWordCollection().getSuggestedTransWords(query)),
+                        getIds(indexed.getWordCollection().getSuggestedTransWords(query)));
+                assertArrayEquals(message, getIds(filter(plain, query, "", "")),
+                        getIds(filter(indexed, query, "", "")));
+                assertArrayEquals(message, getIds(filter(plain, "", query, "")),
+                        getIds(filter(indexed, "", query, "")));
+
+                // value filters decline every word, so only a few are run
+                if (i % 10 == 0) {
+                    assertArrayEquals(message, getIds(filter(plain, "", "", query)),
+                            getIds(filter(indexed, "", "", query)));
+                }
+            }
+        }
+    }
+
+    private ConWord[] filter(DictCore core, String definition, String local, String value) throws Exception {
+        ConWord filter = new ConWord();
+        filter.setCore(core);
+        filter.setDefinition(definition);
+        filter.setLocalWord(local);
+        filter.setValue(value);
+
+        return core.getWordCollection().filteredList(filter);
+    }
+
+    private void setIgnoreCase(boolean ignoreCase) {
+        indexed.getPropertiesManager().setIgnoreCase(ignoreCase);
+        plain.getPropertiesManager().setIgnoreCase(ignoreCase);
+    }
+
+    /**
+     * Gets search terms cut from the values, local words and definitions of a
+     * sample of the lexicon, in their own case and upper cased
+     */
+    private List<String> getQueries(String... extra) {
+        Set<String> ret = new LinkedHashSet<>(Arrays.asList(extra));
+        ConWord[] words = plain.getWordCollection().getWordNodes();
+
+        for (int i = 0; i < words.length; i += 25) {
+            for (String text : new String[]{words[i].getValue(), words[i].getLocalWord(),
+                FormattedTextHelper.getTextBody(words[i].getDefinition())}) {
+                for (int length = 1; length <= 4 && length <= text.length(); length++) {
+                    String query = text.substring(text.length() / 2 - length / 2, text.length() / 2 - length / 2 + length);
+
+                    // regex characters and filter separators are tested elsewhere
+                    if (query.chars().allMatch(Character::isLetter)) {
+                        ret.add(query);
+                        ret.add(query.toUpperCase());
+                    }
+                }
+            }
+        }
+
+        return new ArrayList<>(ret);
+    }
+
+    /**
+     * Gets IDs of words spread through the lexicon
+     */
+    private Integer[] getIds() {
+        ConWord[] words = plain.getWordCollection().getWordNodes();
+        Integer[] ret = new Integer[6];
+
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = words[(i + 1) * words.length / (ret.length + 1)].getId();
+        }
+
+        return ret;
+    }
+
+    private static Integer[] getIds(ConWord[] words) {
+        Integer[] ret = new Integer[words.length];
+
+        for (int i = 0; i < words.length; i++) {
+            ret[i] = words[i].getId();
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.ManagersCollections.ConWordCollection;
+import PolyGlot.Nodes.ConWord;
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the live value and local word counts of the lexicon against counts
+ * rebuilt from scratch after each kind of edit.
+ *
+ * @author draque
+ */
+public class ValueCountTest {
+    private final DictCore core;
+    private final ConWordCollection wordCollection;
+
+    public ValueCountTest() throws Exception {
+        core = new DictCore();
+        core.readFile("test" + File.separator + "TestResources" + File.separator + "Lodenkur_TEST.pgd");
+        wordCollection = core.getWordCollection();
+    }
+
+    @Test
+    public void testCountsFollowEdits() throws Exception {
+        assertCounts();
+
+        String existing = wordCollection.getWordNodes()[0].getValue();
+        int dupA = addWord("dup", "dupLocal");
+        int dupB = addWord("dup", "dupLocal");
+        int dupC = addWord(existing, "dupLocal");
+        assertCounts("dup", existing);
+        assertEquals(2, wordCollection.getValueCount("dup"));
+        assertEquals(3, (int) wordCollection.getLocalCount().get("dupLocal"));
+
+        // renamed in place, both to a fresh value and onto another duplicate
+        wordCollection.getNodeById(dupA).setValue("renamed");
+        wordCollection.getNodeById(dupA).setLocalWord("renamedLocal");
+        assertCounts("dup", "renamed");
+        wordCollection.getNodeById(dupC).setValue("dup");
+        wordCollection.getNodeById(dupC).setLocalWord("renamedLocal");
+        assertCounts("dup", existing, "renamed");
+        wordCollection.getNodeById(dupC).setValue("dup");
+        assertCounts("dup");
+
+        ConWord replaced = wordCollection.getNodeById(dupB);
+        ConWord modified = new ConWord();
+        modified.setValue("renamed");
+        modified.setLocalWord("dupLocal");
+        wordCollection.modifyNode(dupB, modified);
+        assertCounts("dup", "renamed");
+
+        // the node replaced no longer counts, even if edited afterwards
+        replaced.setValue("stale");
+        replaced.setLocalWord("staleLocal");
+        assertCounts("dup", "renamed", "stale");
+
+        ConWord deleted = wordCollection.getNodeById(dupA);
+        wordCollection.deleteNodeById(dupA);
+        assertCounts("dup", "renamed");
+        deleted.setValue("stale");
+        deleted.setLocalWord("staleLocal");
+        assertCounts("renamed", "stale");
+
+        // edits to the buffer only count once it is inserted
+        wordCollection.clear();
+        wordCollection.getBuffer().setValue("buffered");
+        wordCollection.getBuffer().setLocalWord("bufferedLocal");
+        assertCounts("buffered");
+        wordCollection.insert();
+        assertCounts("buffered");
+
+        wordCollection.deleteNodeById(dupB);
+        wordCollection.deleteNodeById(dupC);
+        assertCounts("dup", "renamed");
+    }
+
+    private int addWord(String value, String local) throws Exception {
+        ConWord word = new ConWord();
+        word.setValue(value);
+        word.setLocalWord(local);
+
+        return wordCollection.addWord(word);
+    }
+
+    /**
+     * Asserts live counts and value mapping match those rebuilt from the
+     * words currently held, including for the values given, which may no
+     * longer be held at all
+     */
+    private void assertCounts(String... checkValues) {
+        Map<String, Integer> valueCounts = new HashMap<>();
+        Map<String, Integer> localCounts = new HashMap<>();
+        Map<String, Set<Integer>> valueIds = new HashMap<>();
+
+        for (ConWord word : wordCollection.getWordNodes()) {
+            valueCounts.merge(word.getValue(), 1, Integer::sum);
+            localCounts.merge(word.getLocalWord(), 1, Integer::sum);
+            valueIds.computeIfAbsent(word.getValue(), (k) -> new TreeSet<>()).add(word.getId());
+        }
+
+        assertEquals(valueCounts, wordCollection.getConWordCount());
+        assertEquals(localCounts, wordCollection.getLocalCount());
+
+        Map<String, Set<Integer>> mappedIds = new HashMap<>();
+
+        for (Map.Entry<String, List<ConWord>> entry : wordCollection.getValueMapping().entrySet()) {
+            Set<Integer> ids = new TreeSet<>();
+
+            for (ConWord word : entry.getValue()) {
+                ids.add(word.getId());
+                assertSame(word, wordCollection.getNodeById(word.getId()));
+            }
+
+            assertEquals(entry.getKey(), entry.getValue().size(), ids.size());
+            mappedIds.put(entry.getKey(), ids);
+        }
+
+        assertEquals(valueIds, mappedIds);
+
+        for (String value : checkValues) {
+            int count = valueCounts.getOrDefault(value, 0);
+
+            assertEquals(value, count, wordCollection.getValueCount(value));
+            assertEquals(value, count > 0, wordCollection.testWordValueExists(value));
+        }
+
+        for (String local : new String[]{"dupLocal", "renamedLocal", "staleLocal", "bufferedLocal"}) {
+            assertEquals(local, localCounts.containsKey(local), wordCollection.testLocalValueExists(local));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021, Draque Thompson
+ * All rights reserved.
+ *
+ * Licensed under: Creative Commons Attribution-NonCommercial 4.0 International Public License
+ *  See LICENSE.TXT included with this code to read the full license agreement.
+
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package PolyGlot;
+
+import PolyGlot.ManagersCollections.ConjugationManager;
+import PolyGlot.ManagersCollections.WordFormLookup;
+import PolyGlot.Nodes.ConWord;
+import PolyGlot.Nodes.ConjugationNode;
+import PolyGlot.Nodes.ConjugationPair;
+import java.io.File;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that every wordform of the test lexicon, generated or stored, is
+ * found again in the reverse wordform lookup.
+ *
+ * @author draque
+ */
+public class WordFormLookupTest {
+    private final DictCore core;
+    private final WordFormLookup lookup;
+
+    public WordFormLookupTest() throws Exception {
+        String sourceFile = "test" + File.separator + "TestResources" + File.separator + "Lodenkur_TEST.pgd";
+        core = new DictCore();
+        core.readFile(sourceFile);
+        lookup = core.getWordCollection().buildFormLookup();
+    }
+
+    @Test
+    public void testGeneratedFormsFound() throws Exception {
+        ConjugationManager conjMan = core.getConjugationManager();
+        int checked = 0;
+
+        for (ConWord word : core.getWordCollection().getWordNodes()) {
+            if (word.isOverrideAutoConjugate()) {
+                continue;
+            }
+
+            for (ConjugationPair pair : conjMan.getAllCombinedIds(word.getWordTypeId())) {
+                String form = conjMan.declineWord(word, pair.combinedId);
+
+                if (!conjMan.isCombinedConjlSurpressed(pair.combinedId, word.getWordTypeId())
+                        && !form.trim().isEmpty()) {
+                    // a generated form equal to the stored form is indexed once, as stored
+                    assertNotNull(form, getReference(form, word.getId(), pair.combinedId));
+                    checked++;
+                }
+            }
+        }
+
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    public void testStoredFormsFound() throws Exception {
+        ConjugationManager conjMan = core.getConjugationManager();
+        int checked = 0;
+        int checkedNotOverridden = 0;
+
+        for (ConWord word : core.getWordCollection().getWordNodes()) {
+            for (ConjugationPair pair : conjMan.getAllCombinedIds(word.getWordTypeId())) {
+                ConjugationNode stored = conjMan.getConjugationByCombinedId(word.getId(), pair.combinedId);
+
+                if (stored != null && !stored.getValue().trim().isEmpty()
+                        && !conjMan.isCombinedConjlSurpressed(pair.combinedId, word.getWordTypeId())) {
+                    // stored forms are printed whether or not the word overrides autogeneration
+                    WordFormLookup.Reference ref = getReference(stored.getValue(), word.getId(), pair.combinedId);
+                    assertNotNull(stored.getValue(), ref);
+                    assertTrue(ref.stored);
+                    checked++;
+
+                    if (!word.isOverrideAutoConjugate()) {
+                        checkedNotOverridden++;
+                    }
+                }
+            }
+        }
+
+        assertTrue(checked > 0);
+        assertTrue(checkedNotOverridden > 0);
+    }
+
+    @Test
+    public void testLookupReturnsOnlyMatchingForms() {
+        assertEquals(0, lookup.lookup("ZOT-NOT-A-WORDFORM").length);
+
+        for (ConWord word : core.getWordCollection().getWordNodes()) {
+            for (WordFormLookup.Reference ref : lookup.lookup(word.getValue())) {
+                assertTrue(ref.form.equals(word.getValue()) || core.getPropertiesManager().isIgnoreCase());
+            }
+        }
+    }
+
+    private WordFormLookup.Reference getReference(String form, int wordId, String combinedId) {
+        WordFormLookup.Reference ret = null;
+
+        for (WordFormLookup.Reference ref : lookup.lookup(form)) {
+            if (ref.wordId == wordId && ref.combinedId.equals(combinedId)) {
+                ret = ref;
+                break;
+            }
+        }
+
+        return ret;
+    }
+}